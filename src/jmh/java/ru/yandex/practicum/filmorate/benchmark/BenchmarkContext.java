@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+public class BenchmarkContext implements AutoCloseable {
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "password";
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private BenchmarkContext(ConfigurableApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public static BenchmarkContext start(Dataset dataset) {
+        String url = "jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, USERNAME, PASSWORD);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed(new JdbcTemplate(dataSource), dataset);
+
+        ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + USERNAME,
+                        "--spring.datasource.password=" + PASSWORD);
+        return new BenchmarkContext(applicationContext);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return applicationContext.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        applicationContext.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, Dataset dataset) {
+        Random random = new Random(42);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= dataset.getUsers(); i++) {
+            rows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1970 + random.nextInt(40), 1 + random.nextInt(12), 1))});
+            flush(jdbcTemplate, "insert into users(email, login, name, birthday) values (?, ?, ?, ?)", rows, false);
+        }
+        flush(jdbcTemplate, "insert into users(email, login, name, birthday) values (?, ?, ?, ?)", rows, true);
+
+        String filmsSql = "insert into films(name, description, release_date, duration, likes_count, rating_id) " +
+                "values (?, ?, ?, ?, 0, ?)";
+        for (int i = 1; i <= dataset.getFilms(); i++) {
+            rows.add(new Object[]{"Film " + i, "Description " + i,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1)),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            flush(jdbcTemplate, filmsSql, rows, false);
+        }
+        flush(jdbcTemplate, filmsSql, rows, true);
+
+        String filmGenreSql = "insert into film_genre(film_id, genre_id) values (?, ?)";
+        for (int filmId = 1; filmId <= dataset.getFilms(); filmId++) {
+            for (int genreId : pick(random, 6, random.nextInt(3))) {
+                rows.add(new Object[]{filmId, genreId});
+            }
+            flush(jdbcTemplate, filmGenreSql, rows, false);
+        }
+        flush(jdbcTemplate, filmGenreSql, rows, true);
+
+        String likesSql = "insert into likes(user_id, film_id) values (?, ?)";
+        for (int userId = 1; userId <= dataset.getUsers(); userId++) {
+            for (int filmId : pick(random, dataset.getFilms(), dataset.getLikesPerUser())) {
+                rows.add(new Object[]{userId, filmId});
+            }
+            flush(jdbcTemplate, likesSql, rows, false);
+        }
+        flush(jdbcTemplate, likesSql, rows, true);
+        jdbcTemplate.update("update films f set likes_count = " +
+                "(select count(*) from likes l where l.film_id = f.film_id)");
+
+        String friendshipSql = "insert into friendship(user_id, friend_id) values (?, ?)";
+        for (int userId = 1; userId <= dataset.getUsers(); userId++) {
+            int friends = userId <= 2 ? dataset.getPowerUserFriends() : dataset.getFriendsPerUser();
+            for (int friendId : pick(random, dataset.getUsers(), friends)) {
+                if (friendId != userId) {
+                    rows.add(new Object[]{userId, friendId});
+                }
+            }
+            flush(jdbcTemplate, friendshipSql, rows, false);
+        }
+        flush(jdbcTemplate, friendshipSql, rows, true);
+    }
+
+    private static Set<Integer> pick(Random random, int bound, int count) {
+        Set<Integer> result = new LinkedHashSet<>();
+        int limit = Math.min(bound, count);
+        while (result.size() < limit) {
+            result.add(1 + random.nextInt(bound));
+        }
+        return result;
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows, boolean force) {
+        if (rows.isEmpty() || (!force && rows.size() < BATCH_SIZE)) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class Dataset {
+    private final int users;
+    private final int films;
+    private final int likesPerUser;
+    private final int friendsPerUser;
+    private final int powerUserFriends;
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PopularFilmsBenchmark {
+    @Param("10000")
+    private int users;
+
+    @Param("1000000")
+    private int films;
+
+    @Param("20")
+    private int likesPerUser;
+
+    private BenchmarkContext context;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(new Dataset(users, films, likesPerUser, 0, 0));
+        filmService = context.getBean(FilmService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> popular() {
+        return filmService.getMostPopularFilms(FilmFilter.empty(), 10);
+    }
+
+    @Benchmark
+    public List<Film> popularByGenre() {
+        return popular(List.of(1 + random(6)), null, null);
+    }
+
+    @Benchmark
+    public List<Film> popularByMpa() {
+        return popular(null, 1 + random(5), null);
+    }
+
+    @Benchmark
+    public List<Film> popularByMpaAndYear() {
+        return popular(null, 1 + random(5), 1950 + random(75));
+    }
+
+    @Benchmark
+    public List<Film> popularByYear() {
+        return popular(null, null, 1950 + random(75));
+    }
+
+    @Benchmark
+    public List<Film> popularByYearWithoutFilms() {
+        return popular(null, null, 1900 + random(50));
+    }
+
+    @Benchmark
+    public List<Film> popularByMpaAndYearWithoutFilms() {
+        return popular(null, 1 + random(5), 1900 + random(50));
+    }
+
+    private List<Film> popular(List<Integer> genreIds, Integer mpaId, Integer year) {
+        return filmService.getMostPopularFilms(new FilmFilter(null, genreIds, mpaId, year, year), 10);
+    }
+
+    private int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
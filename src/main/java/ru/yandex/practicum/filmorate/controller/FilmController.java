@@ -1,32 +1,103 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @Slf4j
 @RequestMapping("/films")
 public class FilmController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private FilmService filmService;
+    private ObjectMapper objectMapper;
+    private ChangeTracker changeTracker;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper, ChangeTracker changeTracker) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.changeTracker = changeTracker;
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        log.debug("Поиск всех фильмов");
-        return filmService.findAllFilms();
+    public List<Film> findAll(@RequestParam(required = false) Integer after,
+                              @RequestParam(required = false) Integer limit,
+                              @RequestParam(required = false) List<Integer> ids) {
+        if (ids != null) {
+            log.debug("Поиск фильмов с id = {}.", ids);
+            return filmService.findFilmsByIds(ids);
+        }
+        if (after == null && limit == null) {
+            log.debug("Поиск всех фильмов");
+            return filmService.findAllFilms();
+        }
+        log.debug("Поиск фильмов после id = {}, размер страницы {}.", after, limit);
+        return filmService.findFilmsPage(after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam(required = false) String name,
+                             @RequestParam(required = false) List<Integer> genreIds,
+                             @RequestParam(required = false) Integer mpaId,
+                             @RequestParam(required = false) Integer yearFrom,
+                             @RequestParam(required = false) Integer yearTo,
+                             @RequestParam(required = false) Integer after,
+                             @RequestParam(required = false) Integer limit) {
+        FilmFilter filter = new FilmFilter(name, genreIds, mpaId, yearFrom, yearTo);
+        log.debug("Поиск фильмов: name = {}, genreIds = {}, mpaId = {}, годы {} - {}, после id = {}.",
+                name, genreIds, mpaId, yearFrom, yearTo, after);
+        return filmService.searchFilms(filter, after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody export(HttpServletResponse response) {
+        log.debug("Пришел запрос на выгрузку всех фильмов.");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return out -> {
+            try {
+                filmService.exportFilms(film -> writeLine(out, film));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            log.debug("Выгрузка фильмов завершена.");
+        };
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResult importFilms(@RequestBody List<Film> films) {
+        log.debug("Пришел запрос на импорт {} фильмов.", films.size());
+        return filmService.importFilms(films.iterator());
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResult importFilms(InputStream in) {
+        log.debug("Пришел запрос на потоковый импорт фильмов.");
+        return filmService.importFilms(new NdjsonReader<>(in, objectMapper, Film.class));
     }
 
     @GetMapping("/{id}")
-    public Film findById(@PathVariable("id") Integer id) {
+    public Film findById(@PathVariable("id") Integer id, WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
         log.debug("Поиск фильма с id = {}", id);
         Film film = filmService.findFilmById(id);
         log.debug("Найден фильм {}.", film);
@@ -64,10 +135,33 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10", required = false) int count) {
-        log.debug("Пришел запрос на поиск {} самых популярных фильмов.", count);
-        List<Film> films = filmService.getMostPopularFilms(count);
+    public List<Film> getMostPopularFilms(@RequestParam(defaultValue = "10", required = false) int count,
+                                          @RequestParam(required = false) Integer genreId,
+                                          @RequestParam(required = false) Integer mpaId,
+                                          @RequestParam(required = false) Integer year,
+                                          WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
+        log.debug("Пришел запрос на поиск {} самых популярных фильмов: genreId = {}, mpaId = {}, year = {}.",
+                count, genreId, mpaId, year);
+        FilmFilter filter = new FilmFilter(null, genreId == null ? null : List.of(genreId), mpaId, year, year);
+        List<Film> films = filmService.getMostPopularFilms(filter, count);
         log.debug("Список самых популярных фильмов: {}.", films);
         return films;
     }
+
+    private boolean isNotModified(WebRequest request) {
+        ChangeTracker.Version version = changeTracker.getVersion(ChangeTracker.Domain.FILMS);
+        return request.checkNotModified(version.getETag(), version.getLastModified());
+    }
+
+    private void writeLine(OutputStream out, Film film) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(film));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -6,8 +6,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.film.GenreService;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
 
 import java.util.List;
 
@@ -16,23 +18,36 @@ import java.util.List;
 @RequestMapping("/genres")
 public class GenreController {
     private GenreService genreService;
+    private ChangeTracker changeTracker;
 
     @Autowired
-    public GenreController(GenreService genreService) {
+    public GenreController(GenreService genreService, ChangeTracker changeTracker) {
         this.genreService = genreService;
+        this.changeTracker = changeTracker;
     }
 
     @GetMapping
-    public List<Genre> findAll() {
+    public List<Genre> findAll(WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
         log.debug("Поиск всех жанров.");
         return genreService.findAllGenres();
     }
 
     @GetMapping("/{id}")
-    public Genre findById(@PathVariable("id") Integer id) {
+    public Genre findById(@PathVariable("id") Integer id, WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
         log.debug("Поиск жанра с id = {}.", id);
         Genre genre = genreService.findGenreById(id);
         log.debug("Найден жанр {}.", genre);
         return genre;
     }
+
+    private boolean isNotModified(WebRequest request) {
+        ChangeTracker.Version version = changeTracker.getVersion(ChangeTracker.Domain.GENRES);
+        return request.checkNotModified(version.getETag(), version.getLastModified());
+    }
 }
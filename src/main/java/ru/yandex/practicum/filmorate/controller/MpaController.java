@@ -6,8 +6,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.film.MpaService;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
 
 import java.util.List;
 
@@ -16,23 +18,36 @@ import java.util.List;
 @RequestMapping("/mpa")
 public class MpaController {
     private MpaService mpaService;
+    private ChangeTracker changeTracker;
 
     @Autowired
-    public MpaController(MpaService mpaService) {
+    public MpaController(MpaService mpaService, ChangeTracker changeTracker) {
         this.mpaService = mpaService;
+        this.changeTracker = changeTracker;
     }
 
     @GetMapping
-    public List<Mpa> findAll() {
+    public List<Mpa> findAll(WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
         log.debug("Поиск всех рейтингов.");
         return mpaService.findAllRatings();
     }
 
     @GetMapping("/{id}")
-    public Mpa findById(@PathVariable("id") Integer id) {
+    public Mpa findById(@PathVariable("id") Integer id, WebRequest request) {
+        if (isNotModified(request)) {
+            return null;
+        }
         log.debug("Поиск рейтинга с id = {}.", id);
         Mpa mpa = mpaService.findRatingById(id);
         log.debug("Найден рейтинг {}.", mpa);
         return mpa;
     }
+
+    private boolean isNotModified(WebRequest request) {
+        ChangeTracker.Version version = changeTracker.getVersion(ChangeTracker.Domain.MPA);
+        return request.checkNotModified(version.getETag(), version.getLastModified());
+    }
 }
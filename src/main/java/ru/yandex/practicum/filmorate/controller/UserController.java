@@ -1,11 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
@@ -13,17 +20,33 @@ import java.util.List;
 @Slf4j
 @RequestMapping("/users")
 public class UserController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private UserService userService;
+    private FilmService filmService;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<User> findAll() {
-        log.debug("Поиск всех пользователей.");
-        return userService.findAllUsers();
+    public List<User> findAll(@RequestParam(required = false) Integer after,
+                              @RequestParam(required = false) Integer limit,
+                              @RequestParam(required = false) List<Integer> ids) {
+        if (ids != null) {
+            log.debug("Поиск пользователей с id = {}.", ids);
+            return userService.findUsersByIds(ids);
+        }
+        if (after == null && limit == null) {
+            log.debug("Поиск всех пользователей.");
+            return userService.findAllUsers();
+        }
+        log.debug("Поиск пользователей после id = {}, размер страницы {}.", after, limit);
+        return userService.findUsersPage(after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
     }
 
     @GetMapping("/{id}")
@@ -43,6 +66,30 @@ public class UserController {
 
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResult importUsers(@RequestBody List<User> users) {
+        log.debug("Пришел запрос на импорт {} пользователей.", users.size());
+        return userService.importUsers(users.iterator());
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResult importUsers(InputStream in) {
+        log.debug("Пришел запрос на потоковый импорт пользователей.");
+        return userService.importUsers(new NdjsonReader<>(in, objectMapper, User.class));
+    }
+
+    @PostMapping(value = "/friends/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResult importFriendships(@RequestBody List<Friendship> friendships) {
+        log.debug("Пришел запрос на импорт {} связей дружбы.", friendships.size());
+        return userService.importFriendships(friendships.iterator());
+    }
+
+    @PostMapping(value = "/friends/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResult importFriendships(InputStream in) {
+        log.debug("Пришел запрос на потоковый импорт связей дружбы.");
+        return userService.importFriendships(new NdjsonReader<>(in, objectMapper, Friendship.class));
+    }
+
     @PutMapping
     public User update(@RequestBody User user) {
         log.debug("Пришел запрос на обновление пользователя.");
@@ -71,6 +118,20 @@ public class UserController {
         return userService.getUsersFriends(id);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendedFriends(@PathVariable("id") Integer id,
+                                            @RequestParam(defaultValue = "10", required = false) int count) {
+        log.debug("Поиск {} рекомендуемых друзей для пользователя id = {}.", count, id);
+        return userService.getRecommendedFriends(id, count);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public List<Film> getRecommendedFilms(@PathVariable("id") Integer id,
+                                          @RequestParam(defaultValue = "10", required = false) int count) {
+        log.debug("Поиск {} рекомендуемых фильмов для пользователя id = {}.", count, id);
+        return filmService.getRecommendedFilms(id, count);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable("id") Integer id, @PathVariable("otherId") Integer otherId) {
         log.debug("Поиск общих друзей пользователей с id = {} и id = {}.", id, otherId);
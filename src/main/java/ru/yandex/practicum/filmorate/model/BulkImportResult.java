@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class BulkImportResult {
+    private int total;
+    private int created;
+    private final List<BulkImportError> errors = new ArrayList<>();
+
+    public void addTotal(int count) {
+        total += count;
+    }
+
+    public void addCreated(int count) {
+        created += count;
+    }
+
+    public void addError(int index, String message) {
+        errors.add(new BulkImportError(index, message));
+    }
+}
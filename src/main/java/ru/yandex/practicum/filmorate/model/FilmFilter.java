@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FilmFilter {
+    private final String name;
+    private final List<Integer> genreIds;
+    private final Integer mpaId;
+    private final Integer yearFrom;
+    private final Integer yearTo;
+
+    public static FilmFilter empty() {
+        return new FilmFilter(null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return (name == null || name.isBlank())
+                && (genreIds == null || genreIds.isEmpty())
+                && mpaId == null
+                && yearFrom == null
+                && yearTo == null;
+    }
+}
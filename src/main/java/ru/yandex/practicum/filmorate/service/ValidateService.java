@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
@@ -11,6 +12,9 @@ import java.time.LocalDate;
 @Service
 @Slf4j
 public class ValidateService {
+    public static final int MAX_PAGE_LIMIT = 1000;
+    public static final int MIN_FILTER_YEAR = 1;
+    public static final int MAX_FILTER_YEAR = 9999;
 
     public void validateFilm(Film film) {
         if (film.getName() == null || film.getName().isEmpty()) {
@@ -52,6 +56,42 @@ public class ValidateService {
         }
     }
 
+    public void validatePageLimit(int limit) {
+        if (limit <= 0) {
+            log.warn("Размер страницы должен быть положительным числом.");
+            throw new ValidationException("Размер страницы должен быть положительным числом.");
+        }
+        if (limit > MAX_PAGE_LIMIT) {
+            log.warn("Размер страницы не может превышать {}.", MAX_PAGE_LIMIT);
+            throw new ValidationException("Размер страницы не может превышать " + MAX_PAGE_LIMIT + ".");
+        }
+    }
+
+    public void validateCount(int count) {
+        if (count <= 0) {
+            log.warn("Количество записей должно быть положительным числом.");
+            throw new ValidationException("Количество записей должно быть положительным числом.");
+        }
+    }
+
+    public void validateFilmFilter(FilmFilter filter) {
+        validateFilterYear(filter.getYearFrom());
+        validateFilterYear(filter.getYearTo());
+        if (filter.getYearFrom() != null && filter.getYearTo() != null
+                && filter.getYearFrom() > filter.getYearTo()) {
+            log.warn("Начальный год поиска не может быть больше конечного.");
+            throw new ValidationException("Начальный год поиска не может быть больше конечного.");
+        }
+    }
+
+    private void validateFilterYear(Integer year) {
+        if (year != null && (year < MIN_FILTER_YEAR || year > MAX_FILTER_YEAR)) {
+            log.warn("Год поиска должен быть в диапазоне от {} до {}.", MIN_FILTER_YEAR, MAX_FILTER_YEAR);
+            throw new ValidationException("Год поиска должен быть в диапазоне от " + MIN_FILTER_YEAR
+                    + " до " + MAX_FILTER_YEAR + ".");
+        }
+    }
+
     public void validateUpdateFilm(Film film) {
         if (film.getId() == null) {
             log.warn("Не задан id фильма.");
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class FilmRecommendations {
+    static final int MAX_NEIGHBOURS = 50;
+    private static final int[] EMPTY = new int[0];
+
+    private final FilmStorage filmStorage;
+    private final Map<Integer, int[]> likedFilms = new ConcurrentHashMap<>();
+
+    public FilmRecommendations(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        likedFilms.clear();
+        Map<Integer, IntArrayBuilder> builders = new HashMap<>();
+        filmStorage.forEachLike((userId, filmId) ->
+                builders.computeIfAbsent(userId, id -> new IntArrayBuilder()).add(filmId));
+        builders.forEach((userId, builder) -> likedFilms.put(userId, builder.toSortedArray()));
+        log.info("Матрица лайков загружена, пользователей: {}.", likedFilms.size());
+    }
+
+    public void addLike(int userId, int filmId) {
+        likedFilms.compute(userId, (id, films) -> {
+            int[] current = films == null ? EMPTY : films;
+            int position = Arrays.binarySearch(current, filmId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertAt = -position - 1;
+            int[] updated = new int[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = filmId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void removeLike(int userId, int filmId) {
+        likedFilms.computeIfPresent(userId, (id, films) -> {
+            int position = Arrays.binarySearch(films, filmId);
+            if (position < 0) {
+                return films;
+            }
+            if (films.length == 1) {
+                return null;
+            }
+            int[] updated = new int[films.length - 1];
+            System.arraycopy(films, 0, updated, 0, position);
+            System.arraycopy(films, position + 1, updated, position, films.length - position - 1);
+            return updated;
+        });
+    }
+
+    public int[] findRecommendedIds(int userId, int count) {
+        int[] target = likedFilms.getOrDefault(userId, EMPTY);
+        if (target.length == 0) {
+            return EMPTY;
+        }
+        List<Neighbour> neighbours = likedFilms.entrySet()
+                .parallelStream()
+                .filter(entry -> entry.getKey() != userId)
+                .map(entry -> new Neighbour(entry.getValue(), countCommon(target, entry.getValue())))
+                .filter(neighbour -> neighbour.common > 0 && neighbour.films.length > neighbour.common)
+                .sorted(Comparator.comparingInt((Neighbour neighbour) -> neighbour.common).reversed())
+                .limit(MAX_NEIGHBOURS)
+                .collect(Collectors.toList());
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Neighbour neighbour : neighbours) {
+            for (int filmId : neighbour.films) {
+                if (Arrays.binarySearch(target, filmId) < 0) {
+                    scores.merge(filmId, neighbour.common, Integer::sum);
+                }
+            }
+        }
+        return scores.entrySet()
+                .stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private static int countCommon(int[] first, int[] second) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+
+    private static final class Neighbour {
+        private final int[] films;
+        private final int common;
+
+        private Neighbour(int[] films, int common) {
+            this.films = films;
+            this.common = common;
+        }
+    }
+
+    private static final class IntArrayBuilder {
+        private int[] values = new int[8];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toSortedArray() {
+            int[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
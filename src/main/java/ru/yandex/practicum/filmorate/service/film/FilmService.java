@@ -1,22 +1,33 @@
 package ru.yandex.practicum.filmorate.service.film;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.ValidateService;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.film.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class FilmService {
     private FilmStorage filmStorage;
@@ -25,11 +36,24 @@ public class FilmService {
     private MpaStorage mpaStorage;
     private GenreStorage genreStorage;
     private ValidateService validateService;
+    private WriteBehindLikeBuffer likeBuffer;
+    private PopularFilmsLeaderboard leaderboard;
+    private FilmRecommendations filmRecommendations;
+    private ChangeTracker changeTracker;
+    private int importBatchSize;
 
     @Autowired
     public FilmService(FilmStorage filmStorage, UserStorage userStorage, GenreStorage genreStorage,
-                       MpaStorage mpaStorage, ValidateService validateService) {
+                       MpaStorage mpaStorage, ValidateService validateService, WriteBehindLikeBuffer likeBuffer,
+                       PopularFilmsLeaderboard leaderboard, FilmRecommendations filmRecommendations,
+                       ChangeTracker changeTracker,
+                       @Value("${filmorate.import.batch-size:1000}") int importBatchSize) {
         this.filmStorage = filmStorage;
+        this.likeBuffer = likeBuffer;
+        this.leaderboard = leaderboard;
+        this.filmRecommendations = filmRecommendations;
+        this.changeTracker = changeTracker;
+        this.importBatchSize = importBatchSize;
         this.userStorage = userStorage;
         this.validateService = validateService;
         this.mpaStorage = mpaStorage;
@@ -44,13 +68,33 @@ public class FilmService {
         return filmStorage.findAll();
     }
 
+    public List<Film> findFilmsByIds(List<Integer> ids) {
+        return filmStorage.findByIds(ids);
+    }
+
+    public List<Film> findFilmsPage(Integer after, int limit) {
+        validateService.validatePageLimit(limit);
+        return filmStorage.findPage(after, limit);
+    }
+
+    public List<Film> searchFilms(FilmFilter filter, Integer after, int limit) {
+        validateService.validatePageLimit(limit);
+        validateService.validateFilmFilter(filter);
+        return filmStorage.search(filter, after, limit);
+    }
+
+    public void exportFilms(Consumer<Film> action) {
+        filmStorage.forEach(action);
+    }
+
     public Film updateFilm(Film film) {
         validateService.validateUpdateFilm(film);
         checkRatingExists(film.getMpa());
         checkGenresExists(film.getGenres());
-        findFilmIfExist(film.getId());
 
-        return filmStorage.update(film);
+        Film updatedFilm = filmStorage.update(film);
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+        return updatedFilm;
     }
 
     public Film createFilm(Film film) {
@@ -58,28 +102,132 @@ public class FilmService {
         checkRatingExists(film.getMpa());
         checkGenresExists(film.getGenres());
 
-        return filmStorage.create(film);
+        Film createdFilm = filmStorage.create(film);
+        leaderboard.put(createdFilm);
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+        return createdFilm;
     }
 
-    public void addLike(Integer id, Integer userId) {
-        Film film = findFilmIfExist(id);
-        User user = findUserIfExist(userId);
+    public BulkImportResult importFilms(Iterator<Film> films) {
+        BulkImportResult result = new BulkImportResult();
+        Set<Integer> ratingIds = mpaStorage.findAllRatings()
+                .stream()
+                .map(Mpa::getId)
+                .collect(Collectors.toSet());
+        Set<Integer> genreIds = genreStorage.findAllGenres()
+                .stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
 
-        filmStorage.addLike(film, user);
+        List<Film> batch = new ArrayList<>(importBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(importBatchSize);
+        int index = 0;
+        while (films.hasNext()) {
+            int current = index++;
+            try {
+                Film film = films.next();
+                if (film == null) {
+                    throw new ValidationException("Пустая запись фильма.");
+                }
+                validateService.validateFilm(film);
+                checkImportReferences(film, ratingIds, genreIds);
+                batch.add(film);
+                batchIndexes.add(current);
+            } catch (ValidationException | NotFoundException e) {
+                result.addError(current, e.getMessage());
+            }
+            if (batch.size() >= importBatchSize) {
+                saveImportBatch(batch, batchIndexes, result);
+            }
+        }
+        saveImportBatch(batch, batchIndexes, result);
+        result.addTotal(index);
+        log.info("Импорт фильмов завершен: всего {}, добавлено {}, ошибок {}.",
+                result.getTotal(), result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
+    public void addLike(Integer id, Integer userId) {
+        if (likeBuffer.isEnabled()) {
+            checkFilmExists(id);
+            checkUserExists(userId);
+            likeBuffer.addLike(id, userId);
+            return;
+        }
+        if (filmStorage.addLike(id, userId)) {
+            leaderboard.changeLikes(id, 1);
+            filmRecommendations.addLike(userId, id);
+            changeTracker.changed(ChangeTracker.Domain.FILMS);
+        }
     }
 
     public void removeLike(Integer id, Integer userId) {
-        Film film = findFilmIfExist(id);
-        User user = findUserIfExist(userId);
+        if (likeBuffer.isEnabled()) {
+            checkFilmExists(id);
+            checkUserExists(userId);
+            likeBuffer.removeLike(id, userId);
+            return;
+        }
+        if (filmStorage.removeLike(id, userId)) {
+            leaderboard.changeLikes(id, -1);
+            filmRecommendations.removeLike(userId, id);
+            changeTracker.changed(ChangeTracker.Domain.FILMS);
+        }
+    }
 
-        filmStorage.removeLike(film, user);
+    public List<Film> getMostPopularFilms(FilmFilter filter, int count) {
+        validateService.validateCount(count);
+        validateService.validateFilmFilter(filter);
+
+        if (filter.isEmpty() && leaderboard.isEnabled()) {
+            return leaderboard.findTop(count);
+        }
+        return filmStorage.findMostPopular(filter, count);
+    }
+
+    public List<Film> getRecommendedFilms(Integer userId, int count) {
+        validateService.validateCount(count);
+        checkUserExists(userId);
+
+        int[] ids = filmRecommendations.findRecommendedIds(userId, count);
+        return filmStorage.findByIds(Arrays.stream(ids).boxed().collect(Collectors.toList()));
     }
 
-    public List<Film> getMostPopularFilms(int count) {
-        return filmStorage.findAll().stream()
-                .sorted((f1, f2) -> f2.getLikesCount() - f1.getLikesCount())
-                .limit(count)
+    private void saveImportBatch(List<Film> batch, List<Integer> batchIndexes, BulkImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            filmStorage.createAll(batch).forEach(leaderboard::put);
+            changeTracker.changed(ChangeTracker.Domain.FILMS);
+            result.addCreated(batch.size());
+        } catch (DataAccessException e) {
+            log.error("Не удалось сохранить пакет из {} фильмов.", batch.size(), e);
+            batchIndexes.forEach(index -> result.addError(index, "Не удалось сохранить фильм: "
+                    + e.getMostSpecificCause().getMessage()));
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    private void checkImportReferences(Film film, Set<Integer> ratingIds, Set<Integer> genreIds) {
+        if (film.getMpa() == null) {
+            throw new ValidationException("Не задан рейтинг фильма.");
+        }
+        if (!ratingIds.contains(film.getMpa().getId())) {
+            throw new NotFoundException("Рейтинг с id = " + film.getMpa().getId() + " не найден.");
+        }
+        if (film.getGenres() == null) {
+            return;
+        }
+        List<Integer> wrongGenres = film.getGenres()
+                .stream()
+                .map(Genre::getId)
+                .filter(genreId -> !genreIds.contains(genreId))
                 .collect(Collectors.toList());
+        if (!wrongGenres.isEmpty()) {
+            throw new NotFoundException("Не найдены жанры с id = " + wrongGenres);
+        }
     }
 
     private Film findFilmIfExist(Integer id) {
@@ -87,9 +235,16 @@ public class FilmService {
                 .orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден."));
     }
 
-    private User findUserIfExist(Integer id) {
-        return userStorage.findById(id)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + id + " не найден."));
+    private void checkFilmExists(Integer id) {
+        if (!filmStorage.existsById(id)) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден.");
+        }
+    }
+
+    private void checkUserExists(Integer id) {
+        if (!userStorage.existsById(id)) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден.");
+        }
     }
 
     private void checkRatingExists(Mpa mpa) {
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Slf4j
+@Component
+public class PopularFilmsLeaderboard {
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt((Entry entry) -> entry.likesCount).reversed()
+            .thenComparingInt(entry -> entry.filmId);
+
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    public PopularFilmsLeaderboard(FilmStorage filmStorage,
+                                   @Value("${filmorate.popular.leaderboard.enabled:true}") boolean enabled) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void rebuild() {
+        entries.clear();
+        ranking.clear();
+        filmStorage.forEachLikesCount(this::put);
+        log.info("Рейтинг популярных фильмов загружен, фильмов: {}.", entries.size());
+    }
+
+    public void put(Film film) {
+        put(film.getId(), film.getLikesCount());
+    }
+
+    public void changeLikes(Integer filmId, int delta) {
+        entries.computeIfPresent(filmId, (id, previous) ->
+                replace(previous, new Entry(id, previous.likesCount + delta)));
+    }
+
+    public List<Film> findTop(int count) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Entry entry : ranking) {
+            if (ids.size() >= count) {
+                break;
+            }
+            ids.add(entry.filmId);
+        }
+        return filmStorage.findByIds(ids);
+    }
+
+    private void put(Integer filmId, Integer likesCount) {
+        Entry entry = new Entry(filmId, likesCount);
+        entries.compute(filmId, (id, previous) -> replace(previous, entry));
+    }
+
+    private Entry replace(Entry previous, Entry entry) {
+        if (previous != null && RANKING.compare(previous, entry) == 0) {
+            return previous;
+        }
+        ranking.add(entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private final int filmId;
+        private final int likesCount;
+
+        private Entry(int filmId, int likesCount) {
+            this.filmId = filmId;
+            this.likesCount = likesCount;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class WriteBehindLikeBuffer {
+    private final FilmStorage filmStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final FilmRecommendations filmRecommendations;
+    private final ChangeTracker changeTracker;
+    private final boolean enabled;
+    private final int capacity;
+    private final Map<Long, LikeChange> pending = new ConcurrentHashMap<>();
+
+    public WriteBehindLikeBuffer(FilmStorage filmStorage, PopularFilmsLeaderboard leaderboard,
+                                 FilmRecommendations filmRecommendations, ChangeTracker changeTracker,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.filmRecommendations = filmRecommendations;
+        this.changeTracker = changeTracker;
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addLike(int filmId, int userId) {
+        offer(new LikeChange(filmId, userId, true));
+    }
+
+    public void removeLike(int filmId, int userId) {
+        offer(new LikeChange(filmId, userId, false));
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-interval-ms:200}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить {} изменений like, повтор при следующей выгрузке.", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LikeChange> batch = new ArrayList<>(pending.size());
+        for (Long key : pending.keySet()) {
+            LikeChange change = pending.remove(key);
+            if (change != null) {
+                batch.add(change);
+            }
+        }
+        try {
+            Map<Integer, Integer> deltas = filmStorage.applyLikes(batch);
+            deltas.forEach(leaderboard::changeLikes);
+            batch.forEach(this::applyToRecommendations);
+            if (!deltas.isEmpty()) {
+                changeTracker.changed(ChangeTracker.Domain.FILMS);
+            }
+            log.debug("Сохранено {} изменений like для {} фильмов.", batch.size(), deltas.size());
+        } catch (RuntimeException e) {
+            batch.forEach(change -> pending.putIfAbsent(key(change), change));
+            throw e;
+        }
+    }
+
+    private void applyToRecommendations(LikeChange change) {
+        if (change.isAdded()) {
+            filmRecommendations.addLike(change.getUserId(), change.getFilmId());
+        } else {
+            filmRecommendations.removeLike(change.getUserId(), change.getFilmId());
+        }
+    }
+
+    private void offer(LikeChange change) {
+        if (pending.size() >= capacity) {
+            flush();
+        }
+        pending.put(key(change), change);
+    }
+
+    private static long key(LikeChange change) {
+        return ((long) change.getFilmId() << 32) | (change.getUserId() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Arrays;
+
+@Component
+public class FriendRecommendations {
+    static final int MAX_RECOMMENDATIONS = 100;
+
+    private final UserStorage userStorage;
+    private final Cache<Integer, int[]> recommendations;
+
+    public FriendRecommendations(UserStorage userStorage, MeterRegistry meterRegistry,
+                                 @Value("${filmorate.cache.friend-recommendations.maximum-size:10000}")
+                                 long maximumSize) {
+        this.userStorage = userStorage;
+        this.recommendations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recommendations, "friend-recommendations");
+    }
+
+    public int[] findRecommendedIds(Integer userId, int count) {
+        // Загрузка идет под блокировкой ключа: invalidate ждет ее окончания и удаляет результат,
+        // поэтому посчитанные до изменения дружбы рекомендации в кэше не остаются.
+        int[] ids = recommendations.get(userId, id -> userStorage.findRecommendedIds(id, MAX_RECOMMENDATIONS));
+        return ids.length > count ? Arrays.copyOf(ids, count) : ids;
+    }
+
+    public void invalidate(Integer userId) {
+        recommendations.invalidate(userId);
+        for (int followerId : userStorage.findFollowerIds(userId)) {
+            recommendations.invalidate(followerId);
+        }
+    }
+
+    public void invalidateAll() {
+        recommendations.invalidateAll();
+    }
+}
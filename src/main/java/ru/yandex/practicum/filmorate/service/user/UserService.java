@@ -1,25 +1,42 @@
 package ru.yandex.practicum.filmorate.service.user;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.ValidateService;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class UserService {
     private UserStorage userStorage;
     private ValidateService validateService;
+    private FriendRecommendations friendRecommendations;
+    private int importBatchSize;
 
     @Autowired
-    public UserService(@Qualifier("dbUserStorage") UserStorage userStorage, ValidateService validateService) {
+    public UserService(UserStorage userStorage, ValidateService validateService,
+                       FriendRecommendations friendRecommendations,
+                       @Value("${filmorate.import.batch-size:1000}") int importBatchSize) {
         this.userStorage = userStorage;
         this.validateService = validateService;
+        this.friendRecommendations = friendRecommendations;
+        this.importBatchSize = importBatchSize;
     }
 
     public User findUserById(Integer id) {
@@ -30,9 +47,18 @@ public class UserService {
         return userStorage.findAll();
     }
 
+    public List<User> findUsersByIds(List<Integer> ids) {
+        return userStorage.findByIds(ids);
+    }
+
+    public List<User> findUsersPage(Integer after, int limit) {
+        validateService.validatePageLimit(limit);
+        return userStorage.findPage(after, limit);
+    }
+
     public User updateUser(User user) {
         validateService.validateUpdateUser(user);
-        findUserIfExist(user.getId());
+        checkUsersExist(user.getId());
         checkAndSetUserName(user);
 
         return userStorage.update(user);
@@ -45,18 +71,79 @@ public class UserService {
         return userStorage.create(user);
     }
 
+    public BulkImportResult importUsers(Iterator<User> users) {
+        BulkImportResult result = new BulkImportResult();
+        List<User> batch = new ArrayList<>(importBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(importBatchSize);
+        int index = 0;
+        while (users.hasNext()) {
+            int current = index++;
+            try {
+                User user = users.next();
+                if (user == null) {
+                    throw new ValidationException("Пустая запись пользователя.");
+                }
+                validateService.validateUser(user);
+                checkAndSetUserName(user);
+                batch.add(user);
+                batchIndexes.add(current);
+            } catch (ValidationException e) {
+                result.addError(current, e.getMessage());
+            }
+            if (batch.size() >= importBatchSize) {
+                saveUsersBatch(batch, batchIndexes, result);
+                log.info("Импорт пользователей: обработано {}, добавлено {}.", index, result.getCreated());
+            }
+        }
+        saveUsersBatch(batch, batchIndexes, result);
+        result.addTotal(index);
+        log.info("Импорт пользователей завершен: всего {}, добавлено {}, ошибок {}.",
+                result.getTotal(), result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
+    public BulkImportResult importFriendships(Iterator<Friendship> friendships) {
+        BulkImportResult result = new BulkImportResult();
+        List<Friendship> batch = new ArrayList<>(importBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(importBatchSize);
+        int index = 0;
+        while (friendships.hasNext()) {
+            int current = index++;
+            try {
+                Friendship friendship = friendships.next();
+                if (friendship == null || friendship.getUserId() == null || friendship.getFriendId() == null) {
+                    throw new ValidationException("Не заданы id пользователя и друга.");
+                }
+                batch.add(friendship);
+                batchIndexes.add(current);
+            } catch (ValidationException e) {
+                result.addError(current, e.getMessage());
+            }
+            if (batch.size() >= importBatchSize) {
+                saveFriendshipsBatch(batch, batchIndexes, result);
+                log.info("Импорт друзей: обработано {}, добавлено {}.", index, result.getCreated());
+            }
+        }
+        saveFriendshipsBatch(batch, batchIndexes, result);
+        friendRecommendations.invalidateAll();
+        result.addTotal(index);
+        log.info("Импорт друзей завершен: всего {}, добавлено {}, ошибок {}.",
+                result.getTotal(), result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
     public void addFriend(Integer id, Integer friendId) {
-        User user = findUserIfExist(id);
-        User friend = findUserIfExist(friendId);
+        checkUsersExist(id, friendId);
 
-        userStorage.addFriend(user, friend);
+        userStorage.addFriend(id, friendId);
+        friendRecommendations.invalidate(id);
     }
 
     public void removeFriend(Integer id, Integer friendId) {
-        User user = findUserIfExist(id);
-        User friend = findUserIfExist(friendId);
+        checkUsersExist(id, friendId);
 
-        userStorage.removeFriend(user, friend);
+        userStorage.removeFriend(id, friendId);
+        friendRecommendations.invalidate(id);
     }
 
     public List<User> getUsersFriends(Integer id) {
@@ -65,22 +152,87 @@ public class UserService {
     }
 
     public List<User> getCommonFriends(Integer id, Integer otherId) {
-        User user = findUserIfExist(id);
-        User otherUser = findUserIfExist(otherId);
+        checkUsersExist(id, otherId);
 
-        List<User> userFriends = userStorage.findFriends(user);
-        List<User> otherUserFriends = userStorage.findFriends(otherUser);
+        return userStorage.findCommonFriends(id, otherId);
+    }
 
-        List<User> commonFriends = new ArrayList<>(userFriends);
-        commonFriends.retainAll(otherUserFriends);
+    public List<User> getRecommendedFriends(Integer id, int count) {
+        validateService.validateCount(count);
+        checkUsersExist(id);
 
-        return commonFriends;
+        int[] ids = friendRecommendations.findRecommendedIds(id, count);
+        return userStorage.findByIds(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+    }
+
+    private void saveUsersBatch(List<User> batch, List<Integer> batchIndexes, BulkImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            userStorage.createAll(batch);
+            result.addCreated(batch.size());
+        } catch (DataAccessException e) {
+            log.error("Не удалось сохранить пакет из {} пользователей.", batch.size(), e);
+            batchIndexes.forEach(index -> result.addError(index, "Не удалось сохранить пользователя: "
+                    + e.getMostSpecificCause().getMessage()));
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    private void saveFriendshipsBatch(List<Friendship> batch, List<Integer> batchIndexes, BulkImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new HashSet<>();
+        batch.forEach(friendship -> {
+            ids.add(friendship.getUserId());
+            ids.add(friendship.getFriendId());
+        });
+        Set<Integer> existingIds = userStorage.findExistingIds(ids);
+
+        List<Friendship> known = new ArrayList<>(batch.size());
+        List<Integer> knownIndexes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Friendship friendship = batch.get(i);
+            if (!existingIds.contains(friendship.getUserId())) {
+                result.addError(batchIndexes.get(i), "Пользователь с id = " + friendship.getUserId() + " не найден.");
+            } else if (!existingIds.contains(friendship.getFriendId())) {
+                result.addError(batchIndexes.get(i), "Пользователь с id = " + friendship.getFriendId() + " не найден.");
+            } else {
+                known.add(friendship);
+                knownIndexes.add(batchIndexes.get(i));
+            }
+        }
+        try {
+            result.addCreated(userStorage.addFriends(known));
+        } catch (DataAccessException e) {
+            log.error("Не удалось сохранить пакет из {} связей дружбы.", known.size(), e);
+            knownIndexes.forEach(index -> result.addError(index, "Не удалось добавить друга: "
+                    + e.getMostSpecificCause().getMessage()));
+        }
+        batch.clear();
+        batchIndexes.clear();
     }
 
     private User findUserIfExist(Integer id) {
         return userStorage.findById(id).orElseThrow(() -> new NotFoundException("Пользователь с id = " + id + " не найден."));
     }
 
+    private void checkUsersExist(Integer... ids) {
+        List<Integer> userIds = Arrays.asList(ids);
+        if (userStorage.existsAll(userIds)) {
+            return;
+        }
+        Set<Integer> existingIds = userStorage.findExistingIds(userIds);
+        for (Integer id : userIds) {
+            if (!existingIds.contains(id)) {
+                throw new NotFoundException("Пользователь с id = " + id + " не найден.");
+            }
+        }
+    }
+
     private void checkAndSetUserName(User user) {
         if (user.isEmptyName()) {
             user.setName(user.getLogin());
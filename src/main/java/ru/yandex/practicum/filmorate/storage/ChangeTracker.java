@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class ChangeTracker {
+    private final Map<Domain, AtomicReference<Version>> versions = new EnumMap<>(Domain.class);
+
+    public ChangeTracker() {
+        long startedAt = System.currentTimeMillis();
+        for (Domain domain : Domain.values()) {
+            versions.put(domain, new AtomicReference<>(new Version(domain, startedAt, startedAt)));
+        }
+    }
+
+    public Version getVersion(Domain domain) {
+        return versions.get(domain).get();
+    }
+
+    public void changed(Domain domain) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(domain);
+                }
+            });
+        } else {
+            increment(domain);
+        }
+    }
+
+    private void increment(Domain domain) {
+        // Last-Modified передается с точностью до секунды, поэтому каждое изменение сдвигает его минимум на секунду.
+        versions.get(domain).updateAndGet(current -> new Version(domain, current.counter + 1,
+                Math.max(System.currentTimeMillis(), current.lastModified + 1000)));
+    }
+
+    public enum Domain {
+        FILMS, USERS, GENRES, MPA
+    }
+
+    public static final class Version {
+        private final Domain domain;
+        private final long counter;
+        private final long lastModified;
+
+        private Version(Domain domain, long counter, long lastModified) {
+            this.domain = domain;
+            this.counter = counter;
+            this.lastModified = lastModified;
+        }
+
+        public String getETag() {
+            return "\"" + domain.name().toLowerCase() + "-" + counter + "\"";
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
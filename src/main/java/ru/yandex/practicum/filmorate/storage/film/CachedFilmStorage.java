@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Primary
+@Component
+public class CachedFilmStorage implements FilmStorage {
+    private final FilmDbStorage filmDbStorage;
+    private final ChangeTracker changeTracker;
+    private final Cache<Integer, Film> films;
+    private volatile ChangeTracker.Version genresVersion;
+    private volatile ChangeTracker.Version mpaVersion;
+
+    public CachedFilmStorage(FilmDbStorage filmDbStorage, ChangeTracker changeTracker, MeterRegistry meterRegistry,
+                             @Value("${filmorate.cache.films.maximum-size:10000}") long maximumSize,
+                             @Value("${filmorate.cache.films.ttl-ms:600000}") long ttlMs) {
+        this.filmDbStorage = filmDbStorage;
+        this.changeTracker = changeTracker;
+        this.films = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.genresVersion = changeTracker.getVersion(ChangeTracker.Domain.GENRES);
+        this.mpaVersion = changeTracker.getVersion(ChangeTracker.Domain.MPA);
+        CaffeineCacheMetrics.monitor(meterRegistry, films, "films");
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return filmDbStorage.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(Integer after, int limit) {
+        return filmDbStorage.findPage(after, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<Film> action) {
+        filmDbStorage.forEach(action);
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        filmDbStorage.forEachLike(action);
+    }
+
+    @Override
+    public void forEachLikesCount(BiConsumer<Integer, Integer> action) {
+        filmDbStorage.forEachLikesCount(action);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return filmDbStorage.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return filmDbStorage.createAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        Film updatedFilm = filmDbStorage.update(film);
+        films.invalidate(film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public Optional<Film> findById(Integer id) {
+        checkReferenceData();
+        return Optional.ofNullable(films.get(id, key -> filmDbStorage.findById(key).orElse(null)));
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return films.asMap().containsKey(id) || filmDbStorage.existsById(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        List<Integer> notCached = ids.stream()
+                .filter(id -> !films.asMap().containsKey(id))
+                .collect(Collectors.toList());
+        return notCached.isEmpty() || filmDbStorage.existsAll(notCached);
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Integer> ids) {
+        checkReferenceData();
+        Map<Integer, Film> cached = films.getAll(ids, keys -> filmDbStorage.findByIds(toList(keys))
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity())));
+        return ids.stream()
+                .distinct()
+                .map(cached::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> findMostPopular(FilmFilter filter, int count) {
+        return filmDbStorage.findMostPopular(filter, count);
+    }
+
+    @Override
+    public List<Film> search(FilmFilter filter, Integer after, int limit) {
+        return filmDbStorage.search(filter, after, limit);
+    }
+
+    @Override
+    public boolean addLike(Integer filmId, Integer userId) {
+        boolean changed = filmDbStorage.addLike(filmId, userId);
+        if (changed) {
+            films.invalidate(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeLike(Integer filmId, Integer userId) {
+        boolean changed = filmDbStorage.removeLike(filmId, userId);
+        if (changed) {
+            films.invalidate(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public Map<Integer, Integer> applyLikes(Collection<LikeChange> changes) {
+        Map<Integer, Integer> deltas = filmDbStorage.applyLikes(changes);
+        films.invalidateAll(deltas.keySet());
+        return deltas;
+    }
+
+    public void invalidate() {
+        films.invalidateAll();
+    }
+
+    private static List<Integer> toList(Iterable<? extends Integer> ids) {
+        List<Integer> list = new ArrayList<>();
+        ids.forEach(list::add);
+        return list;
+    }
+
+    private void checkReferenceData() {
+        ChangeTracker.Version genres = changeTracker.getVersion(ChangeTracker.Domain.GENRES);
+        ChangeTracker.Version mpa = changeTracker.getVersion(ChangeTracker.Domain.MPA);
+        if (genres != genresVersion || mpa != mpaVersion) {
+            genresVersion = genres;
+            mpaVersion = mpa;
+            invalidate();
+        }
+    }
+}
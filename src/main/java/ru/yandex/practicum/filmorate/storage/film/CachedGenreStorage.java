@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Primary
+@Component
+public class CachedGenreStorage implements GenreStorage {
+    private final GenreDbStorage genreDbStorage;
+    private final ChangeTracker changeTracker;
+    private volatile Map<Integer, Genre> genres;
+
+    public CachedGenreStorage(GenreDbStorage genreDbStorage, ChangeTracker changeTracker) {
+        this.genreDbStorage = genreDbStorage;
+        this.changeTracker = changeTracker;
+        this.genres = load();
+    }
+
+    @Override
+    public List<Genre> findAllGenres() {
+        return new ArrayList<>(getGenres().values());
+    }
+
+    @Override
+    public Optional<Genre> findGenreById(Integer id) {
+        return Optional.ofNullable(getGenres().get(id));
+    }
+
+    @Override
+    public List<Genre> findGenresByIdList(List<Integer> ids) {
+        Map<Integer, Genre> cached = getGenres();
+        return ids.stream()
+                .distinct()
+                .map(cached::get)
+                .filter(genre -> genre != null)
+                .collect(Collectors.toList());
+    }
+
+    public void invalidate() {
+        genres = null;
+        changeTracker.changed(ChangeTracker.Domain.GENRES);
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+    }
+
+    private Map<Integer, Genre> getGenres() {
+        Map<Integer, Genre> cached = genres;
+        if (cached == null) {
+            cached = load();
+            genres = cached;
+        }
+        return cached;
+    }
+
+    private Map<Integer, Genre> load() {
+        Map<Integer, Genre> loaded = new LinkedHashMap<>();
+        for (Genre genre : genreDbStorage.findAllGenres()) {
+            loaded.put(genre.getId(), genre);
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Primary
+@Component
+public class CachedMpaStorage implements MpaStorage {
+    private final MpaDbStorage mpaDbStorage;
+    private final ChangeTracker changeTracker;
+    private volatile Map<Integer, Mpa> ratings;
+
+    public CachedMpaStorage(MpaDbStorage mpaDbStorage, ChangeTracker changeTracker) {
+        this.mpaDbStorage = mpaDbStorage;
+        this.changeTracker = changeTracker;
+        this.ratings = load();
+    }
+
+    @Override
+    public List<Mpa> findAllRatings() {
+        return new ArrayList<>(getRatings().values());
+    }
+
+    @Override
+    public Optional<Mpa> findRatingById(Integer id) {
+        return Optional.ofNullable(getRatings().get(id));
+    }
+
+    public void invalidate() {
+        ratings = null;
+        changeTracker.changed(ChangeTracker.Domain.MPA);
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+    }
+
+    private Map<Integer, Mpa> getRatings() {
+        Map<Integer, Mpa> cached = ratings;
+        if (cached == null) {
+            cached = load();
+            ratings = cached;
+        }
+        return cached;
+    }
+
+    private Map<Integer, Mpa> load() {
+        Map<Integer, Mpa> loaded = new LinkedHashMap<>();
+        for (Mpa mpa : mpaDbStorage.findAllRatings()) {
+            loaded.put(mpa.getId(), mpa);
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+}
@@ -1,41 +1,129 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Timed(value = "filmorate.storage", histogram = true)
 @Component("dbFilmStorage")
 public class FilmDbStorage implements FilmStorage {
+    private static final String ADD_LIKE_SQL = "insert into likes(user_id, film_id) " +
+            "select cast(:user_id as int), cast(:film_id as int) " +
+            "where not exists (select 1 from likes where user_id = :user_id and film_id = :film_id)";
+    private static final String REMOVE_LIKE_SQL = "delete from likes where user_id = :user_id and film_id = :film_id";
+    private static final String LIKE_REFERENCES_SQL = "select " +
+            "exists (select 1 from films where film_id = :film_id) as film_exists, " +
+            "exists (select 1 from users where user_id = :user_id) as user_exists";
+    private static final String CHANGE_LIKES_COUNT_SQL = "update films set likes_count = coalesce(likes_count, 0) + :delta " +
+            "where film_id = :film_id";
+    private static final int SORTED_READ_COST = 4;
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final int exportFetchSize;
+    private final Counter findAllRows;
+    private final Counter genreRows;
 
-    public FilmDbStorage(NamedParameterJdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(NamedParameterJdbcTemplate jdbcTemplate, GenreStorage genreStorage, MpaStorage mpaStorage,
+                         MeterRegistry meterRegistry,
+                         @Value("${filmorate.export.fetch-size:500}") int exportFetchSize) {
         this.jdbcTemplate = jdbcTemplate;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.exportFetchSize = exportFetchSize;
+        this.findAllRows = meterRegistry.counter("filmorate.storage.rows",
+                "class", "FilmDbStorage", "method", "findAll");
+        this.genreRows = meterRegistry.counter("filmorate.storage.rows",
+                "class", "FilmDbStorage", "method", "fillGenres");
     }
 
     @Override
     public List<Film> findAll() {
         String sql = "select * from films as f join ratings as r on f.rating_id = r.rating_id ";
         List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> makeFilm(rs));
+        findAllRows.increment(films.size());
+        fillAllGenres(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(Integer after, int limit) {
+        String sqlQuery = "select * from films as f join ratings as r on f.rating_id = r.rating_id " +
+                "where f.film_id > :after order by f.film_id limit :limit";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("after", after == null ? 0 : after)
+                .addValue("limit", limit);
+        List<Film> films = jdbcTemplate.query(sqlQuery, parameters, (rs, rowNum) -> makeFilm(rs));
         fillGenres(films);
         return films;
     }
 
     @Override
+    public void forEach(Consumer<Film> action) {
+        String sql = "select f.*, r.rating_name, fg.genre_id from films as f " +
+                "join ratings as r on f.rating_id = r.rating_id " +
+                "left join film_genre as fg on f.film_id = fg.film_id " +
+                "order by f.film_id, fg.genre_id";
+        jdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (ResultSetExtractor<Void>) rs -> forEach(rs, action));
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        String sql = "select user_id, film_id from likes order by user_id, film_id";
+        jdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getInt("user_id"), rs.getInt("film_id")));
+    }
+
+    @Override
+    public void forEachLikesCount(BiConsumer<Integer, Integer> action) {
+        String sql = "select film_id, likes_count from films";
+        jdbcTemplate.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getInt("film_id"), rs.getInt("likes_count")));
+    }
+
+    @Override
+    @Transactional
     public Film create(Film film) {
         String sqlQuery = "insert into films(name, description, release_date, duration, likes_count," +
                 " rating_id) values (:name, :description, :release_date, :duration, :likes_count, :rating_id)";
@@ -45,19 +133,73 @@ public class FilmDbStorage implements FilmStorage {
 
         int id = keyHolder.getKey().intValue();
         film.setId(id);
-        saveFilmGenres(id, film.getGenres());
+        saveFilmGenres(id, getGenreIds(film));
+        fillReferenceData(film);
         return film;
     }
 
     @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        String sqlQuery = "insert into films(name, description, release_date, duration, likes_count," +
+                " rating_id) values (?, ?, ?, ?, ?, ?)";
+        List<Integer> ids = jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<List<Integer>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sqlQuery, new String[]{"film_id"})) {
+                for (Film film : films) {
+                    ps.setString(1, film.getName());
+                    ps.setString(2, film.getDescription());
+                    ps.setObject(3, film.getReleaseDate());
+                    ps.setInt(4, film.getDuration());
+                    ps.setInt(5, film.getLikesCount());
+                    ps.setInt(6, film.getMpa().getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> generatedIds = new ArrayList<>(films.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generatedIds.add(keys.getInt(1));
+                    }
+                }
+                return generatedIds;
+            }
+        });
+        if (ids == null || ids.size() != films.size()) {
+            throw new IllegalStateException("Не удалось получить id добавленных фильмов.");
+        }
+
+        List<SqlParameterSource> genreParameters = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(ids.get(i));
+            genreParameters.addAll(Arrays.asList(toFilmGenreParameters(film.getId(), getGenreIds(film))));
+        }
+        if (!genreParameters.isEmpty()) {
+            String genreQuery = "insert into film_genre(film_id, genre_id) values (:film_id, :genre_id)";
+            jdbcTemplate.batchUpdate(genreQuery, genreParameters.toArray(new SqlParameterSource[0]));
+        }
+        films.forEach(this::fillReferenceData);
+        return films;
+    }
+
+    @Override
+    @Transactional
     public Film update(Film film) {
         String sqlQuery = "update films set " +
                 "name = :name, description = :description, release_date = :release_date, duration = :duration, " +
-                "likes_count = :likes_count, rating_id = :rating_id " +
+                "rating_id = :rating_id " +
                 "where film_id = :film_id";
-        jdbcTemplate.update(sqlQuery, toMap(film));
+        if (jdbcTemplate.update(sqlQuery, toMap(film)) == 0) {
+            throw new NotFoundException("Фильм с id = " + film.getId() + " не найден.");
+        }
+        film.setLikesCount(jdbcTemplate.queryForObject("select likes_count from films where film_id = :film_id",
+                Collections.singletonMap("film_id", film.getId()), Integer.class));
         updateFilmGenres(film);
-        return findById(film.getId()).get();
+        fillReferenceData(film);
+        return film;
     }
 
     @Override
@@ -74,29 +216,223 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public void addLike(Film film, User user) {
-        changeLikesCount(film, true);
+    public boolean existsById(Integer id) {
+        String sqlQuery = "select exists (select 1 from films where film_id = :film_id)";
+        SqlParameterSource parameters = new MapSqlParameterSource("film_id", id);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, parameters, Boolean.class));
+    }
 
-        String sqlQuery = "merge into likes as l using " +
-                "(select cast(:user_id as int) as user_id, cast(:film_id as int) as film_id) as lk " +
-                "on l.user_id = lk.user_id and l.film_id = lk.film_id " +
-                "when not matched then insert (user_id, film_id) values (:user_id, :film_id)";
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("user_id", user.getId());
-        parameters.put("film_id", film.getId());
-        jdbcTemplate.update(sqlQuery, parameters);
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        String sqlQuery = "select film_id from films where film_id in (:film_ids)";
+        SqlParameterSource parameters = new MapSqlParameterSource("film_ids", distinctIds);
+        return jdbcTemplate.queryForList(sqlQuery, parameters, Integer.class).size() == distinctIds.size();
     }
 
     @Override
-    public void removeLike(Film film, User user) {
-        changeLikesCount(film, false);
+    public List<Film> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sqlQuery = "select * from films as f left join ratings as r on f.rating_id = r.rating_id " +
+                "where f.film_id in (:film_ids)";
+        SqlParameterSource parameters = new MapSqlParameterSource("film_ids", ids);
+        List<Film> films = jdbcTemplate.query(sqlQuery, parameters, (rs, rowNum) -> makeFilm(rs));
+        fillGenres(films);
+        Map<Integer, Film> filmsMap = films
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .distinct()
+                .map(filmsMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        String sqlQuery = "delete from likes where user_id = :user_id and film_id = :film_id";
+    @Override
+    public List<Film> findMostPopular(FilmFilter filter, int count) {
+        String indexName = "films_likes_count_idx";
+        if (filter.getYearFrom() != null || filter.getYearTo() != null) {
+            // Обход индекса по likes_count останавливается после count подходящих фильмов и просматривает
+            // в среднем count * всего / подходящих записей, а чтение по дате релиза сортирует все подходящие
+            // фильмы, и каждый обходится в SORTED_READ_COST раз дороже. Обход выгоднее, когда подходящих
+            // не меньше sqrt(count * всего / SORTED_READ_COST), поэтому дальше этого порога их не считаем.
+            long threshold = (long) Math.sqrt((double) count * countFilms() / SORTED_READ_COST) + 1;
+            long matching = countFilmsByYears(filter, threshold);
+            if (matching == 0) {
+                return Collections.emptyList();
+            }
+            if (matching < threshold) {
+                indexName = filter.getMpaId() == null ? "films_release_date_idx" : "films_rating_id_release_date_idx";
+            }
+        }
+        StringBuilder sqlQuery = new StringBuilder("select * from films as f use index (" + indexName + ") " +
+                "join ratings as r on f.rating_id = r.rating_id where true");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("count", count);
+        appendFilter(sqlQuery, parameters, filter);
+        sqlQuery.append(" order by f.likes_count desc, f.film_id limit :count");
+        List<Film> films = jdbcTemplate.query(sqlQuery.toString(), parameters, (rs, rowNum) -> makeFilm(rs));
+        fillGenres(films);
+        return films;
+    }
+
+    private long countFilms() {
+        return jdbcTemplate.queryForObject("select count(*) from films", new MapSqlParameterSource(), Long.class);
+    }
 
+    private long countFilmsByYears(FilmFilter filter, long limit) {
+        StringBuilder sqlQuery = new StringBuilder("select count(*) from (select 1 from films as f where true");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        appendFilter(sqlQuery, parameters, new FilmFilter(null, null, filter.getMpaId(),
+                filter.getYearFrom(), filter.getYearTo()));
+        sqlQuery.append(" limit :limit)");
+        return jdbcTemplate.queryForObject(sqlQuery.toString(), parameters, Long.class);
+    }
+
+    @Override
+    public List<Film> search(FilmFilter filter, Integer after, int limit) {
+        StringBuilder sqlQuery = new StringBuilder("select * from films as f " +
+                "join ratings as r on f.rating_id = r.rating_id " +
+                "where f.film_id > :after");
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("after", after == null ? 0 : after)
+                .addValue("limit", limit);
+        appendFilter(sqlQuery, parameters, filter);
+        sqlQuery.append(" order by f.film_id limit :limit");
+
+        List<Film> films = jdbcTemplate.query(sqlQuery.toString(), parameters, (rs, rowNum) -> makeFilm(rs));
+        fillGenres(films);
+        return films;
+    }
+
+    private void appendFilter(StringBuilder sqlQuery, MapSqlParameterSource parameters, FilmFilter filter) {
+        if (filter.getName() != null && !filter.getName().isBlank()) {
+            sqlQuery.append(" and lower(f.name) like :name escape '\\'");
+            parameters.addValue("name", "%" + escapeLike(filter.getName().toLowerCase()) + "%");
+        }
+        if (filter.getMpaId() != null) {
+            sqlQuery.append(" and f.rating_id = :rating_id");
+            parameters.addValue("rating_id", filter.getMpaId());
+        }
+        if (filter.getYearFrom() != null) {
+            sqlQuery.append(" and f.release_date >= :release_from");
+            parameters.addValue("release_from", LocalDate.of(filter.getYearFrom(), 1, 1));
+        }
+        if (filter.getYearTo() != null) {
+            sqlQuery.append(" and f.release_date < :release_to");
+            parameters.addValue("release_to", LocalDate.of(filter.getYearTo() + 1, 1, 1));
+        }
+        if (filter.getGenreIds() != null && !filter.getGenreIds().isEmpty()) {
+            sqlQuery.append(" and exists (select 1 from film_genre as fg " +
+                    "where fg.film_id = f.film_id and fg.genre_id in (:genre_ids))");
+            parameters.addValue("genre_ids", filter.getGenreIds());
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Integer filmId, Integer userId) {
+        String sqlQuery = ADD_LIKE_SQL;
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("user_id", user.getId());
-        parameters.put("film_id", film.getId());
-        jdbcTemplate.update(sqlQuery, parameters);
+        parameters.put("user_id", userId);
+        parameters.put("film_id", filmId);
+        int changed;
+        try {
+            changed = jdbcTemplate.update(sqlQuery, parameters);
+        } catch (DuplicateKeyException e) {
+            // Параллельный запрос уже добавил этот like, счетчик он же и увеличил.
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            checkLikeReferences(filmId, userId);
+            throw e;
+        }
+        if (changed > 0) {
+            changeLikesCount(filmId, changed);
+        }
+        return changed > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Integer filmId, Integer userId) {
+        String sqlQuery = REMOVE_LIKE_SQL;
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("user_id", userId);
+        parameters.put("film_id", filmId);
+        int changed = jdbcTemplate.update(sqlQuery, parameters);
+        if (changed == 0) {
+            checkLikeReferences(filmId, userId);
+            return false;
+        }
+        changeLikesCount(filmId, -changed);
+        return true;
+    }
+
+    private void checkLikeReferences(Integer filmId, Integer userId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("film_id", filmId)
+                .addValue("user_id", userId);
+        jdbcTemplate.query(LIKE_REFERENCES_SQL, parameters, (RowCallbackHandler) rs -> {
+            if (!rs.getBoolean("film_exists")) {
+                throw new NotFoundException("Фильм с id = " + filmId + " не найден.");
+            }
+            if (!rs.getBoolean("user_exists")) {
+                throw new NotFoundException("Пользователь с id = " + userId + " не найден.");
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> applyLikes(Collection<LikeChange> changes) {
+        List<LikeChange> added = new ArrayList<>();
+        List<LikeChange> removed = new ArrayList<>();
+        for (LikeChange change : changes) {
+            (change.isAdded() ? added : removed).add(change);
+        }
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        collectDeltas(deltas, added, jdbcTemplate.batchUpdate(ADD_LIKE_SQL, toLikeParameters(added)), 1);
+        collectDeltas(deltas, removed, jdbcTemplate.batchUpdate(REMOVE_LIKE_SQL, toLikeParameters(removed)), -1);
+        deltas.values().removeIf(delta -> delta == 0);
+
+        SqlParameterSource[] counterParameters = deltas.entrySet()
+                .stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("film_id", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(CHANGE_LIKES_COUNT_SQL, counterParameters);
+        return deltas;
+    }
+
+    private void collectDeltas(Map<Integer, Integer> deltas, List<LikeChange> changes, int[] rowCounts, int sign) {
+        for (int i = 0; i < rowCounts.length; i++) {
+            if (rowCounts[i] > 0) {
+                deltas.merge(changes.get(i).getFilmId(), sign * rowCounts[i], Integer::sum);
+            }
+        }
+    }
+
+    private SqlParameterSource[] toLikeParameters(List<LikeChange> changes) {
+        return changes
+                .stream()
+                .map(change -> new MapSqlParameterSource()
+                        .addValue("user_id", change.getUserId())
+                        .addValue("film_id", change.getFilmId()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 
     private Film makeFilm(ResultSet rs) throws SQLException {
@@ -114,42 +450,89 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     private void fillGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
         Map<Integer, Film> filmsMap = films
                 .stream()
                 .collect(Collectors.toMap(Film::getId, Function.identity()));
-        String sql = "select f.film_id, g.genre_id, g.name from genres as g join film_genre as f " +
-                "on g.genre_id = f.genre_id " +
+        String sql = "select film_id, genre_id from film_genre " +
                 "where film_id in (:film_ids) order by genre_id";
         SqlParameterSource namedParameters = new MapSqlParameterSource("film_ids", filmsMap.keySet());
         jdbcTemplate.query(sql, namedParameters, (ResultSetExtractor<Void>) rs -> fillGenres(rs, filmsMap));
     }
 
-    private void saveFilmGenres(int id, Set<Genre> genres) {
-        if (genres == null || genres.isEmpty()) {
+    private void fillAllGenres(List<Film> films) {
+        if (films.isEmpty()) {
             return;
         }
-        StringBuilder sqlBuilder = new StringBuilder("insert into film_genre(film_id, genre_id) values ");
-        String[] values = new String[genres.size()];
-        String genreIdParam = "genre_id";
-        int i = 0;
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("film_id", id);
-        for (Genre genre : genres) {
-            values[i] = "(:film_id, :genre_id" + i + ")";
-            parameters.put(genreIdParam + i, genre.getId());
-            i++;
+        Map<Integer, Film> filmsMap = films
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        String sql = "select film_id, genre_id from film_genre order by genre_id";
+        jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> fillGenres(rs, filmsMap));
+    }
+
+    private void saveFilmGenres(int id, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        String sqlQuery = "insert into film_genre(film_id, genre_id) values (:film_id, :genre_id)";
+        jdbcTemplate.batchUpdate(sqlQuery, toFilmGenreParameters(id, genreIds));
+    }
+
+    private void deleteFilmGenres(int id, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
         }
-        sqlBuilder.append(String.join(", ", values));
-        jdbcTemplate.update(sqlBuilder.toString(), parameters);
+        String sqlQuery = "delete from film_genre where film_id = :film_id and genre_id = :genre_id";
+        jdbcTemplate.batchUpdate(sqlQuery, toFilmGenreParameters(id, genreIds));
     }
 
     private void updateFilmGenres(Film film) {
         int filmId = film.getId();
 
-        String sqlQuery = "delete from film_genre where film_id = :film_id";
-        jdbcTemplate.update(sqlQuery, Collections.singletonMap("film_id", filmId));
+        String sqlQuery = "select genre_id from film_genre where film_id = :film_id";
+        Set<Integer> currentGenreIds = new HashSet<>(jdbcTemplate.queryForList(sqlQuery,
+                Collections.singletonMap("film_id", filmId), Integer.class));
+        Set<Integer> newGenreIds = getGenreIds(film);
+
+        Set<Integer> removedGenreIds = new HashSet<>(currentGenreIds);
+        removedGenreIds.removeAll(newGenreIds);
+        Set<Integer> addedGenreIds = new LinkedHashSet<>(newGenreIds);
+        addedGenreIds.removeAll(currentGenreIds);
+
+        deleteFilmGenres(filmId, removedGenreIds);
+        saveFilmGenres(filmId, addedGenreIds);
+    }
+
+    private void fillReferenceData(Film film) {
+        mpaStorage.findRatingById(film.getMpa().getId()).ifPresent(film::setMpa);
+        Set<Genre> genres = new LinkedHashSet<>();
+        getGenreIds(film)
+                .stream()
+                .sorted()
+                .forEach(genreId -> genres.add(getGenre(genreId)));
+        film.setGenres(genres);
+    }
+
+    private Set<Integer> getGenreIds(Film film) {
+        if (film.getGenres() == null) {
+            return Collections.emptySet();
+        }
+        return film.getGenres()
+                .stream()
+                .map(Genre::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        saveFilmGenres(filmId, film.getGenres());
+    private SqlParameterSource[] toFilmGenreParameters(int filmId, Collection<Integer> genreIds) {
+        return genreIds
+                .stream()
+                .map(genreId -> new MapSqlParameterSource()
+                        .addValue("film_id", filmId)
+                        .addValue("genre_id", genreId))
+                .toArray(SqlParameterSource[]::new);
     }
 
     private Map<String, Object> toMap(Film film) {
@@ -166,29 +549,51 @@ public class FilmDbStorage implements FilmStorage {
         return values;
     }
 
-    private void changeLikesCount(Film film, boolean increase) {
-        int filmId = film.getId();
-        String sqlQuery = "select count(user_id) from likes where film_id = :film_id";
-
-        SqlParameterSource parameter = new MapSqlParameterSource("film_id", filmId);
-        int likes = jdbcTemplate.queryForObject(sqlQuery, parameter, Integer.class);
-
-        likes = increase ? ++likes : --likes;
-
-        sqlQuery = "update films set likes_count = :likes_count where film_id = :film_id";
+    private void changeLikesCount(int filmId, int delta) {
+        String sqlQuery = CHANGE_LIKES_COUNT_SQL;
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("likes_count", likes);
+        parameters.put("delta", delta);
         parameters.put("film_id", filmId);
         jdbcTemplate.update(sqlQuery, parameters);
     }
 
+    private Void forEach(ResultSet rs, Consumer<Film> action) throws SQLException, DataAccessException {
+        Film current = null;
+        while (rs.next()) {
+            int filmId = rs.getInt("film_id");
+            if (current == null || current.getId() != filmId) {
+                if (current != null) {
+                    action.accept(current);
+                }
+                current = makeFilm(rs);
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                current.addGenre(getGenre(genreId));
+            }
+        }
+        if (current != null) {
+            action.accept(current);
+        }
+        return null;
+    }
+
     private Void fillGenres(ResultSet rs, Map<Integer, Film> films)
             throws SQLException, DataAccessException {
+        int rows = 0;
         while (rs.next()) {
-            Integer filmId = rs.getInt("film_id");
-            Genre genre = new Genre(rs.getInt("genre_id"), rs.getString("name"));
-            films.get(filmId).addGenre(genre);
+            rows++;
+            Film film = films.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.addGenre(getGenre(rs.getInt("genre_id")));
+            }
         }
+        genreRows.increment(rows);
         return null;
     }
-}
\ No newline at end of file
+
+    private Genre getGenre(int genreId) {
+        return genreStorage.findGenreById(genreId)
+                .orElseGet(() -> new Genre(genreId, null));
+    }
+}
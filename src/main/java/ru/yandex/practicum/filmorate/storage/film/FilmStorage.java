@@ -1,22 +1,49 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     List<Film> findAll();
 
+    List<Film> findPage(Integer after, int limit);
+
+    void forEach(Consumer<Film> action);
+
+    void forEachLike(BiConsumer<Integer, Integer> action);
+
+    void forEachLikesCount(BiConsumer<Integer, Integer> action);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> findById(Integer id);
 
-    void addLike(Film film, User user);
+    boolean existsById(Integer id);
+
+    boolean existsAll(Collection<Integer> ids);
+
+    List<Film> findByIds(Collection<Integer> ids);
+
+    List<Film> findMostPopular(FilmFilter filter, int count);
+
+    List<Film> search(FilmFilter filter, Integer after, int limit);
+
+    boolean addLike(Integer filmId, Integer userId);
+
+    boolean removeLike(Integer filmId, Integer userId);
 
-    void removeLike(Film film, User user);
+    Map<Integer, Integer> applyLikes(Collection<LikeChange> changes);
 }
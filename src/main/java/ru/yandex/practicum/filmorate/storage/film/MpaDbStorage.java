@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
@@ -11,6 +12,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+@Timed(value = "filmorate.storage", histogram = true)
 @Component
 public class MpaDbStorage implements MpaStorage {
 
@@ -22,7 +24,7 @@ public class MpaDbStorage implements MpaStorage {
 
     @Override
     public List<Mpa> findAllRatings() {
-        String sql = "select * from ratings";
+        String sql = "select * from ratings order by rating_id";
         return jdbcTemplate.query(sql, (rs, rowNum) -> makeRating(rs));
     }
 
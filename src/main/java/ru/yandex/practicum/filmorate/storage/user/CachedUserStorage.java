@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Primary
+@Component
+public class CachedUserStorage implements UserStorage {
+    private final UserDbStorage userDbStorage;
+    private final ChangeTracker changeTracker;
+    private final Cache<Integer, User> users;
+
+    public CachedUserStorage(UserDbStorage userDbStorage, ChangeTracker changeTracker, MeterRegistry meterRegistry,
+                             @Value("${filmorate.cache.users.maximum-size:10000}") long maximumSize,
+                             @Value("${filmorate.cache.users.ttl-ms:600000}") long ttlMs) {
+        this.userDbStorage = userDbStorage;
+        this.changeTracker = changeTracker;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    @Override
+    public List<User> findAll() {
+        return userDbStorage.findAll();
+    }
+
+    @Override
+    public List<User> findPage(Integer after, int limit) {
+        return userDbStorage.findPage(after, limit);
+    }
+
+    @Override
+    public User create(User user) {
+        User createdUser = userDbStorage.create(user);
+        changeTracker.changed(ChangeTracker.Domain.USERS);
+        return createdUser;
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        List<User> createdUsers = userDbStorage.createAll(users);
+        changeTracker.changed(ChangeTracker.Domain.USERS);
+        return createdUsers;
+    }
+
+    @Override
+    public User update(User user) {
+        User updatedUser = userDbStorage.update(user);
+        users.invalidate(user.getId());
+        changeTracker.changed(ChangeTracker.Domain.USERS);
+        return updatedUser;
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        return Optional.ofNullable(users.get(id, key -> userDbStorage.findById(key).orElse(null)));
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return users.asMap().containsKey(id) || userDbStorage.existsById(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        List<Integer> notCached = ids.stream()
+                .filter(id -> !users.asMap().containsKey(id))
+                .collect(Collectors.toList());
+        return notCached.isEmpty() || userDbStorage.existsAll(notCached);
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        return userDbStorage.findByIds(ids);
+    }
+
+    @Override
+    public boolean addFriend(Integer userId, Integer friendId) {
+        boolean changed = userDbStorage.addFriend(userId, friendId);
+        if (changed) {
+            changeTracker.changed(ChangeTracker.Domain.USERS);
+        }
+        return changed;
+    }
+
+    @Override
+    public int addFriends(List<Friendship> friendships) {
+        int created = userDbStorage.addFriends(friendships);
+        if (created > 0) {
+            changeTracker.changed(ChangeTracker.Domain.USERS);
+        }
+        return created;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return userDbStorage.findExistingIds(ids);
+    }
+
+    @Override
+    public boolean removeFriend(Integer userId, Integer friendId) {
+        boolean changed = userDbStorage.removeFriend(userId, friendId);
+        if (changed) {
+            changeTracker.changed(ChangeTracker.Domain.USERS);
+        }
+        return changed;
+    }
+
+    @Override
+    public List<User> findFriends(User user) {
+        return userDbStorage.findFriends(user);
+    }
+
+    @Override
+    public List<User> findCommonFriends(Integer userId, Integer otherId) {
+        return userDbStorage.findCommonFriends(userId, otherId);
+    }
+
+    @Override
+    public int[] findRecommendedIds(Integer userId, int limit) {
+        return userDbStorage.findRecommendedIds(userId, limit);
+    }
+
+    @Override
+    public int[] findFollowerIds(Integer userId) {
+        return userDbStorage.findFollowerIds(userId);
+    }
+}
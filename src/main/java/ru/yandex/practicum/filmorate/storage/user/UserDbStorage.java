@@ -1,33 +1,69 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Timed(value = "filmorate.storage", histogram = true)
 @Component("dbUserStorage")
 public class UserDbStorage implements UserStorage {
+    private static final String ADD_FRIEND_SQL = "insert into friendship(user_id, friend_id) " +
+            "select cast(:user_id as int), cast(:friend_id as int) " +
+            "where not exists (select 1 from friendship where user_id = :user_id and friend_id = :friend_id)";
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Counter findAllRows;
 
-    public UserDbStorage(NamedParameterJdbcTemplate jdbcTemplate) {
+    public UserDbStorage(NamedParameterJdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
         this.jdbcTemplate = jdbcTemplate;
+        this.findAllRows = meterRegistry.counter("filmorate.storage.rows",
+                "class", "UserDbStorage", "method", "findAll");
     }
 
     @Override
     public List<User> findAll() {
         String sql = "select * from users";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> makeUser(rs));
+        List<User> users = jdbcTemplate.query(sql, (rs, rowNum) -> makeUser(rs));
+        findAllRows.increment(users.size());
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(Integer after, int limit) {
+        String sqlQuery = "select * from users where user_id > :after order by user_id limit :limit";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("after", after == null ? 0 : after)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sqlQuery, parameters, (rs, rowNum) -> makeUser(rs));
     }
 
     @Override
@@ -43,6 +79,41 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        String sqlQuery = "insert into users (email, login, name, birthday) values (?, ?, ?, ?)";
+        List<Integer> ids = jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<List<Integer>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sqlQuery, new String[]{"user_id"})) {
+                for (User user : users) {
+                    ps.setString(1, user.getEmail());
+                    ps.setString(2, user.getLogin());
+                    ps.setString(3, user.getName());
+                    ps.setObject(4, user.getBirthday());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> generatedIds = new ArrayList<>(users.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generatedIds.add(keys.getInt(1));
+                    }
+                }
+                return generatedIds;
+            }
+        });
+        if (ids == null || ids.size() != users.size()) {
+            throw new IllegalStateException("Не удалось получить id добавленных пользователей.");
+        }
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+        }
+        return users;
+    }
+
     @Override
     public User update(User user) {
         String sqlQuery = "update users set " +
@@ -65,26 +136,93 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
-    public void addFriend(User user, User friend) {
-        String sqlQuery = "merge into friendship as f using " +
-                "(select cast(:user_id as int) as user_id, cast(:friend_id as int) as friend_id) as fs " +
-                "on f.user_id = fs.user_id and f.friend_id = fs.friend_id " +
-                "when not matched then insert (user_id, friend_id) values (:user_id, :friend_id)";
+    public boolean existsById(Integer id) {
+        String sqlQuery = "select exists (select 1 from users where user_id = :user_id)";
+        SqlParameterSource parameters = new MapSqlParameterSource("user_id", id);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, parameters, Boolean.class));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        String sqlQuery = "select user_id from users where user_id in (:user_ids)";
+        SqlParameterSource parameters = new MapSqlParameterSource("user_ids", distinctIds);
+        return jdbcTemplate.queryForList(sqlQuery, parameters, Integer.class).size() == distinctIds.size();
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sqlQuery = "select * from users where user_id in (:user_ids)";
+        SqlParameterSource parameters = new MapSqlParameterSource("user_ids", ids);
+        Map<Integer, User> users = jdbcTemplate.query(sqlQuery, parameters, (rs, rowNum) -> makeUser(rs))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .distinct()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean addFriend(Integer userId, Integer friendId) {
+        String sqlQuery = ADD_FRIEND_SQL;
 
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("user_id", user.getId());
-        parameters.put("friend_id", friend.getId());
-        jdbcTemplate.update(sqlQuery, parameters);
+        parameters.put("user_id", userId);
+        parameters.put("friend_id", friendId);
+        int changed;
+        try {
+            changed = jdbcTemplate.update(sqlQuery, parameters);
+        } catch (DuplicateKeyException e) {
+            // Параллельный запрос уже добавил эту пару, дружба не изменилась.
+            return false;
+        }
+        return changed > 0;
     }
 
     @Override
-    public void removeFriend(User user, User friend) {
+    @Transactional
+    public int addFriends(List<Friendship> friendships) {
+        if (friendships.isEmpty()) {
+            return 0;
+        }
+        SqlParameterSource[] parameters = friendships
+                .stream()
+                .map(friendship -> new MapSqlParameterSource()
+                        .addValue("user_id", friendship.getUserId())
+                        .addValue("friend_id", friendship.getFriendId()))
+                .toArray(SqlParameterSource[]::new);
+        int created = Arrays.stream(jdbcTemplate.batchUpdate(ADD_FRIEND_SQL, parameters))
+                .filter(changed -> changed > 0)
+                .sum();
+        return created;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String sqlQuery = "select user_id from users where user_id in (:user_ids)";
+        SqlParameterSource parameters = new MapSqlParameterSource("user_ids", ids);
+        return new HashSet<>(jdbcTemplate.queryForList(sqlQuery, parameters, Integer.class));
+    }
+
+    @Override
+    public boolean removeFriend(Integer userId, Integer friendId) {
         String sqlQuery = "delete from friendship where user_id = :user_id and friend_id = :friend_id";
 
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("user_id", user.getId());
-        parameters.put("friend_id", friend.getId());
-        jdbcTemplate.update(sqlQuery, parameters);
+        parameters.put("user_id", userId);
+        parameters.put("friend_id", friendId);
+        return jdbcTemplate.update(sqlQuery, parameters) > 0;
     }
 
     @Override
@@ -95,6 +233,51 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, namedParameters, (rs, rowNum) -> makeUser(rs));
     }
 
+    @Override
+    public List<User> findCommonFriends(Integer userId, Integer otherId) {
+        String sql = "select u.* from friendship as f1 " +
+                "join friendship as f2 on f1.friend_id = f2.friend_id " +
+                "join users as u on u.user_id = f1.friend_id " +
+                "where f1.user_id = :user_id and f2.user_id = :other_id " +
+                "order by u.user_id";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("user_id", userId);
+        parameters.put("other_id", otherId);
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) -> makeUser(rs));
+    }
+
+    @Override
+    public int[] findRecommendedIds(Integer userId, int limit) {
+        String sql = "select f2.friend_id, count(*) as mutual_count from friendship as f1 " +
+                "join friendship as f2 on f2.user_id = f1.friend_id " +
+                "where f1.user_id = :user_id and f2.friend_id <> :user_id " +
+                "and not exists (select 1 from friendship as f3 " +
+                "where f3.user_id = :user_id and f3.friend_id = f2.friend_id) " +
+                "group by f2.friend_id " +
+                "order by mutual_count desc, f2.friend_id " +
+                "limit :limit";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("user_id", userId);
+        parameters.put("limit", limit);
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) -> rs.getInt("friend_id"))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Override
+    public int[] findFollowerIds(Integer userId) {
+        String sql = "select user_id from friendship where friend_id = :user_id";
+
+        SqlParameterSource namedParameters = new MapSqlParameterSource("user_id", userId);
+        return jdbcTemplate.queryForList(sql, namedParameters, Integer.class)
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
     private User makeUser(ResultSet rs) throws SQLException {
         User user = new User(
                 rs.getInt("user_id"),
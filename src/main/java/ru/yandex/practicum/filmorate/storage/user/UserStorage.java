@@ -1,23 +1,46 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
     List<User> findAll();
 
+    List<User> findPage(Integer after, int limit);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User user);
 
     Optional<User> findById(Integer id);
 
-    void addFriend(User user, User friend);
+    boolean existsById(Integer id);
+
+    boolean existsAll(Collection<Integer> ids);
+
+    List<User> findByIds(Collection<Integer> ids);
+
+    boolean addFriend(Integer userId, Integer friendId);
 
-    void removeFriend(User user, User friend);
+    int addFriends(List<Friendship> friendships);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    boolean removeFriend(Integer userId, Integer friendId);
 
     List<User> findFriends(User user);
+
+    List<User> findCommonFriends(Integer userId, Integer otherId);
+
+    int[] findRecommendedIds(Integer userId, int limit);
+
+    int[] findFollowerIds(Integer userId);
 }
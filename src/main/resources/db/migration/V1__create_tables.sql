@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, genres, ratings, films, film_genre, likes, friendship;
-
 CREATE TABLE public.users(
         user_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
         email varchar(255) NOT NULL,
@@ -0,0 +1,24 @@
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON public.films(likes_count DESC, film_id);
+
+DELETE FROM public.film_genre AS fg WHERE EXISTS (SELECT 1 FROM public.film_genre AS d
+        WHERE d.film_id = fg.film_id AND d.genre_id = fg.genre_id AND d._ROWID_ < fg._ROWID_);
+
+ALTER TABLE public.film_genre ADD CONSTRAINT IF NOT EXISTS film_genre_pk PRIMARY KEY (film_id, genre_id);
+
+CREATE INDEX IF NOT EXISTS film_genre_genre_id_idx ON public.film_genre(genre_id, film_id);
+
+DELETE FROM public.likes AS l WHERE EXISTS (SELECT 1 FROM public.likes AS d
+        WHERE d.user_id = l.user_id AND d.film_id = l.film_id AND d._ROWID_ < l._ROWID_);
+
+UPDATE public.films AS f SET likes_count = (SELECT COUNT(*) FROM public.likes AS l WHERE l.film_id = f.film_id);
+
+ALTER TABLE public.likes ADD CONSTRAINT IF NOT EXISTS likes_pk PRIMARY KEY (user_id, film_id);
+
+CREATE INDEX IF NOT EXISTS likes_film_id_idx ON public.likes(film_id, user_id);
+
+DELETE FROM public.friendship AS f WHERE EXISTS (SELECT 1 FROM public.friendship AS d
+        WHERE d.user_id = f.user_id AND d.friend_id = f.friend_id AND d._ROWID_ < f._ROWID_);
+
+ALTER TABLE public.friendship ADD CONSTRAINT IF NOT EXISTS friendship_pk PRIMARY KEY (user_id, friend_id);
+
+CREATE INDEX IF NOT EXISTS friendship_friend_id_idx ON public.friendship(friend_id, user_id);
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS films_rating_id_release_date_idx ON public.films(rating_id, release_date);
+
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON public.films(release_date);
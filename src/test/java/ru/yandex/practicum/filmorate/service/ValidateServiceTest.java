@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -88,6 +89,43 @@ public class ValidateServiceTest {
         assertEquals(result.getMessage(), "День Рождения не может быть в будущем.");
     }
 
+    @Test
+    public void validatePageLimit_NotPositive_ReturnsValidationException() {
+        ValidationException result = assertThrows(ValidationException.class,
+                () -> validateService.validatePageLimit(0));
+        assertEquals(result.getMessage(), "Размер страницы должен быть положительным числом.");
+    }
+
+    @Test
+    public void validatePageLimit_TooLarge_ReturnsValidationException() {
+        ValidationException result = assertThrows(ValidationException.class,
+                () -> validateService.validatePageLimit(ValidateService.MAX_PAGE_LIMIT + 1));
+        assertEquals(result.getMessage(), "Размер страницы не может превышать 1000.");
+    }
+
+    @Test
+    public void validateCount_NotPositive_ReturnsValidationException() {
+        ValidationException result = assertThrows(ValidationException.class,
+                () -> validateService.validateCount(-1));
+        assertEquals(result.getMessage(), "Количество записей должно быть положительным числом.");
+    }
+
+    @Test
+    public void validateFilmFilter_WrongYears_ReturnsValidationException() {
+        FilmFilter filter = new FilmFilter(null, null, null, 2020, 2010);
+        ValidationException result = assertThrows(ValidationException.class,
+                () -> validateService.validateFilmFilter(filter));
+        assertEquals(result.getMessage(), "Начальный год поиска не может быть больше конечного.");
+    }
+
+    @Test
+    public void validateFilmFilter_YearOutOfRange_ReturnsValidationException() {
+        FilmFilter filter = new FilmFilter(null, null, null, 999999999, 999999999);
+        ValidationException result = assertThrows(ValidationException.class,
+                () -> validateService.validateFilmFilter(filter));
+        assertEquals(result.getMessage(), "Год поиска должен быть в диапазоне от 1 до 9999.");
+    }
+
     Film getFilm() {
         return new Film(1, "Name", "Description",
                 LocalDate.of(2000, 10, 10), 100, 0,
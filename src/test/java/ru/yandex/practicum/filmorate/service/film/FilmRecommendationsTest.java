@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class FilmRecommendationsTest {
+
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+
+    @Test
+    void testRecommendsFilmsOfClosestUsers() {
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Integer> action = invocation.getArgument(0);
+            action.accept(1, 10);
+            action.accept(1, 20);
+            action.accept(2, 10);
+            action.accept(2, 20);
+            action.accept(2, 30);
+            action.accept(3, 10);
+            action.accept(3, 40);
+            action.accept(4, 50);
+            return null;
+        }).when(filmStorage).forEachLike(any());
+        FilmRecommendations recommendations = new FilmRecommendations(filmStorage);
+
+        assertThat(recommendations.findRecommendedIds(1, 10)).containsExactly(30, 40);
+        assertThat(recommendations.findRecommendedIds(1, 1)).containsExactly(30);
+        assertThat(recommendations.findRecommendedIds(5, 10)).isEmpty();
+    }
+
+    @Test
+    void testLikesAreUpdatedIncrementally() {
+        FilmRecommendations recommendations = new FilmRecommendations(filmStorage);
+        recommendations.addLike(1, 10);
+        recommendations.addLike(2, 30);
+        recommendations.addLike(2, 10);
+        recommendations.addLike(2, 20);
+        recommendations.addLike(2, 20);
+
+        assertThat(recommendations.findRecommendedIds(1, 10)).containsExactly(20, 30);
+
+        recommendations.addLike(1, 20);
+        recommendations.removeLike(2, 30);
+
+        assertThat(recommendations.findRecommendedIds(1, 10)).isEmpty();
+    }
+}
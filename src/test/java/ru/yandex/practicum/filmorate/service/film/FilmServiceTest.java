@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.controller.NdjsonReader;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.ValidateService;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FilmServiceTest {
+
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+    private final UserStorage userStorage = mock(UserStorage.class);
+    private final GenreStorage genreStorage = mock(GenreStorage.class);
+    private final MpaStorage mpaStorage = mock(MpaStorage.class);
+    private final WriteBehindLikeBuffer likeBuffer = mock(WriteBehindLikeBuffer.class);
+    private final PopularFilmsLeaderboard leaderboard = mock(PopularFilmsLeaderboard.class);
+    private final FilmRecommendations filmRecommendations = mock(FilmRecommendations.class);
+    private final ChangeTracker changeTracker = mock(ChangeTracker.class);
+    private final FilmService filmService = new FilmService(filmStorage, userStorage, genreStorage, mpaStorage,
+            new ValidateService(), likeBuffer, leaderboard, filmRecommendations, changeTracker, 2);
+
+    @Test
+    void testImportSkipsInvalidFilms() {
+        when(mpaStorage.findAllRatings()).thenReturn(List.of(new Mpa(1, "G")));
+        when(filmStorage.createAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        Film withoutName = getFilm();
+        withoutName.setName("");
+        Film withWrongMpa = getFilm();
+        withWrongMpa.setMpa(new Mpa(100, null));
+
+        BulkImportResult result = filmService.importFilms(
+                Arrays.asList(getFilm(), null, withoutName, withWrongMpa, getFilm()).iterator());
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting("index", "message")
+                .containsExactly(
+                        tuple(1, "Пустая запись фильма."),
+                        tuple(2, "Название фильма не может быть пустым."),
+                        tuple(3, "Рейтинг с id = 100 не найден."));
+        verify(filmStorage, times(1)).createAll(any());
+    }
+
+    @Test
+    void testImportContinuesAfterUnreadableLines() {
+        when(mpaStorage.findAllRatings()).thenReturn(List.of(new Mpa(1, "G")));
+        when(filmStorage.createAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        String film = "{\"name\":\"Name\",\"releaseDate\":\"2000-10-10\",\"duration\":100,\"mpa\":{\"id\":1}}";
+        String lines = String.join("\n", film, "null", "{\"name\":", "{\"name\":\"Name\",\"duration\":\"long\"}", film);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        BulkImportResult result = filmService.importFilms(new NdjsonReader<>(
+                new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), objectMapper, Film.class));
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting("index")
+                .containsExactly(1, 2, 3);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Пустая запись фильма.");
+        assertThat(result.getErrors().get(2).getMessage()).startsWith("Некорректная строка JSON");
+    }
+
+    @Test
+    void testImportReportsFailedBatch() {
+        when(mpaStorage.findAllRatings()).thenReturn(List.of(new Mpa(1, "G")));
+        when(filmStorage.createAll(any()))
+                .thenThrow(new DataIntegrityViolationException("constraint"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkImportResult result = filmService.importFilms(List.of(getFilm(), getFilm(), getFilm()).iterator());
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors())
+                .extracting("index")
+                .containsExactly(0, 1);
+    }
+
+    @Test
+    void testAddLikeChangesVersionAfterLeaderboard() {
+        when(filmStorage.addLike(1, 2)).thenReturn(true);
+
+        filmService.addLike(1, 2);
+
+        InOrder order = inOrder(filmStorage, leaderboard, changeTracker);
+        order.verify(filmStorage).addLike(1, 2);
+        order.verify(leaderboard).changeLikes(1, 1);
+        order.verify(changeTracker).changed(ChangeTracker.Domain.FILMS);
+    }
+
+    @Test
+    void testRemovedMissingLikeKeepsVersion() {
+        when(filmStorage.removeLike(1, 2)).thenReturn(false);
+
+        filmService.removeLike(1, 2);
+
+        verify(leaderboard, never()).changeLikes(any(), any(Integer.class));
+        verify(changeTracker, never()).changed(any());
+    }
+
+    @Test
+    void testLikeIsWrittenWithoutExistenceChecks() {
+        when(filmStorage.addLike(1, 2)).thenReturn(true);
+
+        filmService.addLike(1, 2);
+
+        verify(filmStorage, never()).existsById(any());
+        verify(userStorage, never()).existsById(any());
+    }
+
+    @Test
+    void testPopularValidatesCountAndFilter() {
+        FilmFilter wrongYear = new FilmFilter(null, null, null, 999999999, 999999999);
+
+        assertThrows(ValidationException.class, () -> filmService.getMostPopularFilms(FilmFilter.empty(), -1));
+        assertThrows(ValidationException.class, () -> filmService.getMostPopularFilms(wrongYear, 10));
+        verify(filmStorage, never()).findMostPopular(any(), anyInt());
+    }
+
+    private Film getFilm() {
+        return new Film(null, "Name", "Description",
+                LocalDate.of(2000, 10, 10), 100, 0,
+                new Mpa(1, null), new HashSet<>());
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PopularFilmsLeaderboardTest {
+
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(filmStorage.findByIds(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> getFilm(id, 0))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildRanksByLikesThenId() {
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Integer> action = invocation.getArgument(0);
+            action.accept(1, 1);
+            action.accept(2, 5);
+            action.accept(3, 1);
+            return null;
+        }).when(filmStorage).forEachLikesCount(any());
+
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard(filmStorage, true);
+
+        assertThat(leaderboard.findTop(2))
+                .extracting("id")
+                .containsExactly(2, 1);
+        verify(filmStorage, never()).forEach(any());
+    }
+
+    @Test
+    void testChangeLikesMovesFilm() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard(filmStorage, true);
+        leaderboard.put(getFilm(1, 2));
+        leaderboard.put(getFilm(2, 1));
+
+        leaderboard.changeLikes(2, 2);
+        leaderboard.changeLikes(1, -1);
+        leaderboard.changeLikes(100, 1);
+
+        assertThat(leaderboard.findTop(10))
+                .extracting("id")
+                .containsExactly(2, 1);
+    }
+
+    @Test
+    void testFindTopLoadsOnlyTopFilms() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard(filmStorage, true);
+        leaderboard.put(getFilm(1, 0));
+        leaderboard.put(getFilm(2, 3));
+        leaderboard.put(getFilm(3, 1));
+        leaderboard.put(getFilm(2, 3));
+
+        assertThat(leaderboard.findTop(2))
+                .extracting("id")
+                .containsExactly(2, 3);
+        verify(filmStorage).findByIds(Set.of(2, 3));
+    }
+
+    private Film getFilm(int id, int likesCount) {
+        return new Film(id, "Name", "Description",
+                LocalDate.of(2000, 10, 10), 100, likesCount,
+                new Mpa(1, null), new HashSet<>());
+    }
+}
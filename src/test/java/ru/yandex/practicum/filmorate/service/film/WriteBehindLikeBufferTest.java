@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindLikeBufferTest {
+
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+    private final PopularFilmsLeaderboard leaderboard = mock(PopularFilmsLeaderboard.class);
+    private final FilmRecommendations filmRecommendations = mock(FilmRecommendations.class);
+    private final ChangeTracker changeTracker = mock(ChangeTracker.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushCoalescesChangesPerFilmAndUser() {
+        when(filmStorage.applyLikes(any())).thenReturn(Map.of(1, -1));
+        WriteBehindLikeBuffer buffer = new WriteBehindLikeBuffer(filmStorage, leaderboard, filmRecommendations,
+                changeTracker, true, 100);
+
+        buffer.addLike(1, 1);
+        buffer.removeLike(1, 1);
+        buffer.addLike(1, 2);
+        buffer.addLike(1, 2);
+        buffer.flush();
+
+        ArgumentCaptor<Collection<LikeChange>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(filmStorage).applyLikes(captor.capture());
+        assertThat(captor.getValue())
+                .extracting("filmId", "userId", "added")
+                .containsExactlyInAnyOrder(tuple(1, 1, false), tuple(1, 2, true));
+        assertThat(buffer.size()).isZero();
+        InOrder order = inOrder(leaderboard, changeTracker);
+        order.verify(leaderboard).changeLikes(1, -1);
+        order.verify(changeTracker).changed(ChangeTracker.Domain.FILMS);
+        verify(filmRecommendations).removeLike(1, 1);
+        verify(filmRecommendations).addLike(2, 1);
+    }
+
+    @Test
+    void testFullBufferFlushesOnCallerThread() {
+        when(filmStorage.applyLikes(any())).thenReturn(Map.of());
+        WriteBehindLikeBuffer buffer = new WriteBehindLikeBuffer(filmStorage, leaderboard, filmRecommendations,
+                changeTracker, true, 2);
+
+        buffer.addLike(1, 1);
+        buffer.addLike(1, 2);
+        verify(filmStorage, never()).applyLikes(any());
+
+        buffer.addLike(1, 3);
+        verify(filmStorage, times(1)).applyLikes(any());
+        assertThat(buffer.size()).isEqualTo(1);
+        verify(changeTracker, never()).changed(any());
+    }
+
+    @Test
+    void testFailedFlushKeepsChanges() {
+        when(filmStorage.applyLikes(any())).thenThrow(new IllegalStateException("db is down"));
+        WriteBehindLikeBuffer buffer = new WriteBehindLikeBuffer(filmStorage, leaderboard, filmRecommendations,
+                changeTracker, true, 100);
+
+        buffer.addLike(1, 1);
+        buffer.addLike(2, 1);
+
+        assertThrows(IllegalStateException.class, buffer::flush);
+        assertThat(buffer.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FriendRecommendationsTest {
+
+    private final UserStorage userStorage = mock(UserStorage.class);
+    private final FriendRecommendations recommendations = new FriendRecommendations(userStorage,
+            new SimpleMeterRegistry(), 100);
+
+    @Test
+    void testRecommendationsAreCached() {
+        when(userStorage.findRecommendedIds(1, FriendRecommendations.MAX_RECOMMENDATIONS))
+                .thenReturn(new int[]{5, 4, 3});
+
+        assertThat(recommendations.findRecommendedIds(1, 2)).containsExactly(5, 4);
+        assertThat(recommendations.findRecommendedIds(1, 10)).containsExactly(5, 4, 3);
+        verify(userStorage, times(1)).findRecommendedIds(1, FriendRecommendations.MAX_RECOMMENDATIONS);
+    }
+
+    @Test
+    void testInvalidateDropsUserAndFollowers() {
+        when(userStorage.findRecommendedIds(anyInt(), anyInt())).thenReturn(new int[]{7});
+        when(userStorage.findFollowerIds(1)).thenReturn(new int[]{2});
+        recommendations.findRecommendedIds(1, 10);
+        recommendations.findRecommendedIds(2, 10);
+        recommendations.findRecommendedIds(3, 10);
+
+        recommendations.invalidate(1);
+        recommendations.findRecommendedIds(1, 10);
+        recommendations.findRecommendedIds(2, 10);
+        recommendations.findRecommendedIds(3, 10);
+
+        verify(userStorage, times(2)).findRecommendedIds(1, FriendRecommendations.MAX_RECOMMENDATIONS);
+        verify(userStorage, times(2)).findRecommendedIds(2, FriendRecommendations.MAX_RECOMMENDATIONS);
+        verify(userStorage, times(1)).findRecommendedIds(3, FriendRecommendations.MAX_RECOMMENDATIONS);
+    }
+
+    @Test
+    void testInvalidateDuringLoadDropsLoadedRecommendations() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch friendAdded = new CountDownLatch(1);
+        when(userStorage.findFollowerIds(1)).thenReturn(new int[0]);
+        when(userStorage.findRecommendedIds(1, FriendRecommendations.MAX_RECOMMENDATIONS))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    friendAdded.await(5, TimeUnit.SECONDS);
+                    return new int[]{7};
+                })
+                .thenReturn(new int[]{8});
+
+        Thread reader = new Thread(() -> recommendations.findRecommendedIds(1, 10));
+        reader.start();
+        loading.await(5, TimeUnit.SECONDS);
+        Thread writer = new Thread(() -> recommendations.invalidate(1));
+        writer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.WAITING
+                && writer.isAlive() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        friendAdded.countDown();
+        reader.join();
+        writer.join();
+
+        assertThat(recommendations.findRecommendedIds(1, 10)).containsExactly(8);
+    }
+}
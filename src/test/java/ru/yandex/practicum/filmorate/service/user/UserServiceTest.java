@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ValidateService;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserServiceTest {
+
+    private final UserStorage userStorage = mock(UserStorage.class);
+    private final FriendRecommendations friendRecommendations = mock(FriendRecommendations.class);
+    private final UserService userService = new UserService(userStorage, new ValidateService(),
+            friendRecommendations, 2);
+
+    @Test
+    void testImportUsersSkipsInvalidUsers() {
+        when(userStorage.createAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        User withoutEmail = getUser();
+        withoutEmail.setEmail(" ");
+
+        BulkImportResult result = userService.importUsers(
+                Arrays.asList(getUser(), null, withoutEmail, getUser()).iterator());
+
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting("index", "message")
+                .containsExactly(
+                        tuple(1, "Пустая запись пользователя."),
+                        tuple(2, "Электронная почта не может быть пустой."));
+    }
+
+    @Test
+    void testImportFriendshipsSkipsInvalidFriendships() {
+        when(userStorage.findExistingIds(any())).thenReturn(Set.of(1, 2));
+        when(userStorage.addFriends(anyList())).thenAnswer(invocation -> {
+            List<Friendship> friendships = invocation.getArgument(0);
+            return friendships.size();
+        });
+
+        BulkImportResult result = userService.importFriendships(Arrays.asList(
+                new Friendship(1, 2), null, new Friendship(1, null), new Friendship(1, 3)).iterator());
+
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors())
+                .extracting("index", "message")
+                .containsExactly(
+                        tuple(1, "Не заданы id пользователя и друга."),
+                        tuple(2, "Не заданы id пользователя и друга."),
+                        tuple(3, "Пользователь с id = 3 не найден."));
+    }
+
+    private User getUser() {
+        return new User(null, "login@yandex.ru", "login", "name",
+                LocalDate.of(1990, 5, 5));
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangeTrackerTest {
+
+    private final ChangeTracker changeTracker = new ChangeTracker();
+
+    @Test
+    void testChangedUpdatesOnlyItsDomain() {
+        String filmsETag = changeTracker.getVersion(ChangeTracker.Domain.FILMS).getETag();
+        String genresETag = changeTracker.getVersion(ChangeTracker.Domain.GENRES).getETag();
+
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+
+        assertThat(changeTracker.getVersion(ChangeTracker.Domain.FILMS).getETag()).isNotEqualTo(filmsETag);
+        assertThat(changeTracker.getVersion(ChangeTracker.Domain.GENRES).getETag()).isEqualTo(genresETag);
+    }
+
+    @Test
+    void testLastModifiedMovesBySecondsAtLeast() {
+        long lastModified = changeTracker.getVersion(ChangeTracker.Domain.FILMS).getLastModified();
+
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+        changeTracker.changed(ChangeTracker.Domain.FILMS);
+
+        assertThat(changeTracker.getVersion(ChangeTracker.Domain.FILMS).getLastModified())
+                .isGreaterThanOrEqualTo(lastModified + 2000);
+    }
+
+    @Test
+    void testChangeInTransactionIsVisibleAfterCommit() {
+        String filmsETag = changeTracker.getVersion(ChangeTracker.Domain.FILMS).getETag();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeTracker.changed(ChangeTracker.Domain.FILMS);
+            assertThat(changeTracker.getVersion(ChangeTracker.Domain.FILMS).getETag()).isEqualTo(filmsETag);
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(changeTracker.getVersion(ChangeTracker.Domain.FILMS).getETag()).isNotEqualTo(filmsETag);
+    }
+}
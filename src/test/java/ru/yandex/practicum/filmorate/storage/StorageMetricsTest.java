@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.film.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({FilmDbStorage.class, UserDbStorage.class, CachedGenreStorage.class, GenreDbStorage.class,
+        CachedMpaStorage.class, MpaDbStorage.class, ChangeTracker.class, MetricsConfig.class,
+        SimpleMeterRegistry.class})
+public class StorageMetricsTest {
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public StorageMetricsTest(FilmDbStorage filmStorage, UserDbStorage userStorage, MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    void testRowCountersAreRegistered() {
+        filmStorage.create(getFilm());
+        userStorage.create(getUser());
+
+        filmStorage.findAll();
+        userStorage.findAll();
+
+        assertThat(rows("FilmDbStorage", "findAll")).isGreaterThanOrEqualTo(1);
+        assertThat(rows("UserDbStorage", "findAll")).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("filmorate.storage.rows")
+                .tags("class", "FilmDbStorage", "method", "fillGenres")
+                .counter()).isNotNull();
+    }
+
+    @Test
+    void testStorageCallsAreTimed() {
+        long filmCalls = timerCount(FilmDbStorage.class, "findAll");
+        long userCalls = timerCount(UserDbStorage.class, "findById");
+
+        filmStorage.findAll();
+        userStorage.findById(-1);
+
+        assertThat(timerCount(FilmDbStorage.class, "findAll")).isEqualTo(filmCalls + 1);
+        assertThat(timerCount(UserDbStorage.class, "findById")).isEqualTo(userCalls + 1);
+    }
+
+    private double rows(String className, String method) {
+        return meterRegistry.get("filmorate.storage.rows")
+                .tags("class", className, "method", method)
+                .counter()
+                .count();
+    }
+
+    private long timerCount(Class<?> type, String method) {
+        Timer timer = meterRegistry.find("filmorate.storage")
+                .tags("class", type.getName(), "method", method)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private Film getFilm() {
+        return new Film(null, "Name", "Description",
+                LocalDate.of(2000, 10, 10), 100, 0,
+                new Mpa(1, null), new HashSet<>());
+    }
+
+    private User getUser() {
+        return new User(null, "login@yandex.ru", "login", "name",
+                LocalDate.of(1990, 5, 5));
+    }
+}
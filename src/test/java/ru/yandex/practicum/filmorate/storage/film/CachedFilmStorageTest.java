@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CachedFilmStorage.class, FilmDbStorage.class, UserDbStorage.class, CachedGenreStorage.class,
+        GenreDbStorage.class, CachedMpaStorage.class, MpaDbStorage.class, ChangeTracker.class,
+        SimpleMeterRegistry.class})
+public class CachedFilmStorageTest {
+    private final CachedFilmStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final CachedGenreStorage genreStorage;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CachedFilmStorageTest(CachedFilmStorage filmStorage, UserDbStorage userStorage,
+                                 CachedGenreStorage genreStorage, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.genreStorage = genreStorage;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void testFindByIdIsCached() {
+        Film film = filmStorage.create(getFilm());
+        Film cached = filmStorage.findById(film.getId()).orElseThrow();
+
+        rename(film.getId(), "Changed");
+
+        assertThat(filmStorage.findById(film.getId())).containsSame(cached);
+        assertThat(filmStorage.findById(-1)).isEmpty();
+    }
+
+    @Test
+    void testFindByIdsUsesCache() {
+        Film film1 = filmStorage.create(getFilm());
+        Film film2 = filmStorage.create(getFilm());
+        Film cached = filmStorage.findById(film1.getId()).orElseThrow();
+
+        rename(film1.getId(), "Changed");
+
+        assertThat(filmStorage.findByIds(List.of(film2.getId(), -1, film1.getId())))
+                .extracting("id")
+                .containsExactly(film2.getId(), film1.getId());
+        assertThat(filmStorage.findByIds(List.of(film1.getId())).get(0)).isSameAs(cached);
+        assertThat(filmStorage.findById(film2.getId()).orElseThrow())
+                .isSameAs(filmStorage.findByIds(List.of(film2.getId())).get(0));
+    }
+
+    @Test
+    void testUpdateInvalidatesFilm() {
+        Film film = filmStorage.create(getFilm());
+        filmStorage.findById(film.getId());
+
+        film.setName("New name");
+        filmStorage.update(film);
+
+        assertThat(filmStorage.findById(film.getId()).orElseThrow())
+                .hasFieldOrPropertyWithValue("name", "New name");
+    }
+
+    @Test
+    void testLikesInvalidateFilm() {
+        Film film = filmStorage.create(getFilm());
+        User user = userStorage.create(getUser());
+        User otherUser = userStorage.create(getUser());
+        filmStorage.findById(film.getId());
+
+        filmStorage.addLike(film.getId(), user.getId());
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikesCount()).isEqualTo(1);
+
+        filmStorage.applyLikes(List.of(new LikeChange(film.getId(), otherUser.getId(), true)));
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikesCount()).isEqualTo(2);
+
+        filmStorage.removeLike(film.getId(), user.getId());
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikesCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testGenreChangesInvalidateAll() {
+        Film film = filmStorage.create(getFilm());
+        Film cached = filmStorage.findById(film.getId()).orElseThrow();
+
+        genreStorage.invalidate();
+
+        assertThat(filmStorage.findById(film.getId()).orElseThrow()).isNotSameAs(cached);
+    }
+
+    private void rename(Integer filmId, String name) {
+        jdbcTemplate.update("update films set name = :name where film_id = :film_id",
+                new MapSqlParameterSource("name", name).addValue("film_id", filmId));
+    }
+
+    private Film getFilm() {
+        return new Film(null, "Name", "Description",
+                LocalDate.of(2000, 10, 10), 100, 0,
+                new Mpa(1, null), new HashSet<>());
+    }
+
+    private User getUser() {
+        return new User(null, "login@yandex.ru", "login", "name",
+                LocalDate.of(1990, 5, 5));
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CachedGenreStorage.class, GenreDbStorage.class, ChangeTracker.class})
+public class CachedGenreStorageTest {
+    private final CachedGenreStorage genreStorage;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CachedGenreStorageTest(CachedGenreStorage genreStorage, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.genreStorage = genreStorage;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void testFindGenresByIdList() {
+        List<Genre> resultGenres = genreStorage.findGenresByIdList(List.of(2, 1, 100));
+        assertThat(resultGenres)
+                .extracting("name")
+                .containsExactly("Драма", "Комедия");
+    }
+
+    @Test
+    void testInvalidate() {
+        jdbcTemplate.update("insert into genres(name) values (:name)", new MapSqlParameterSource("name", "Мюзикл"));
+        assertThat(genreStorage.findAllGenres()).hasSize(6);
+
+        genreStorage.invalidate();
+
+        assertThat(genreStorage.findAllGenres())
+                .hasSize(7)
+                .extracting("name")
+                .contains("Мюзикл");
+    }
+}
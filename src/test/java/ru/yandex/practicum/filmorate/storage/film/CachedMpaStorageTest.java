@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CachedMpaStorage.class, MpaDbStorage.class, ChangeTracker.class})
+public class CachedMpaStorageTest {
+    private final CachedMpaStorage mpaStorage;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CachedMpaStorageTest(CachedMpaStorage mpaStorage, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.mpaStorage = mpaStorage;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void testFindRatingById() {
+        assertThat(mpaStorage.findRatingById(3))
+                .isPresent()
+                .get()
+                .hasFieldOrPropertyWithValue("name", "PG-13");
+        assertThat(mpaStorage.findRatingById(100)).isEmpty();
+    }
+
+    @Test
+    void testInvalidate() {
+        jdbcTemplate.update("insert into ratings(rating_name) values (:name)", new MapSqlParameterSource("name", "X"));
+        assertThat(mpaStorage.findAllRatings()).hasSize(5);
+
+        mpaStorage.invalidate();
+
+        assertThat(mpaStorage.findAllRatings())
+                .hasSize(6)
+                .extracting("name")
+                .contains("X");
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
@@ -7,22 +8,41 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @JdbcTest
-@Import({FilmDbStorage.class, UserDbStorage.class})
+@Import({FilmDbStorage.class, UserDbStorage.class, CachedGenreStorage.class, GenreDbStorage.class,
+        CachedMpaStorage.class, MpaDbStorage.class, ChangeTracker.class,
+        SimpleMeterRegistry.class})
 public class FilmDbStorageTest {
     private final FilmDbStorage filmStorage;
     private final UserDbStorage userStorage;
@@ -47,6 +67,24 @@ public class FilmDbStorageTest {
         assertFilmsEquals(resultFilm, actualFilm);
     }
 
+    @Test
+    void testCreateAllFilms() {
+        Film filmWithGenres = getFilm();
+        filmWithGenres.addGenre(new Genre(2, null));
+        filmWithGenres.addGenre(new Genre(1, null));
+
+        List<Film> resultFilms = filmStorage.createAll(List.of(filmWithGenres, getFilm()));
+
+        assertThat(resultFilms)
+                .extracting("id")
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(filmStorage.findById(resultFilms.get(0).getId()).get().getGenres())
+                .extracting("name")
+                .containsExactly("Комедия", "Драма");
+        assertThat(filmStorage.findById(resultFilms.get(1).getId()).get().getGenres()).isEmpty();
+    }
+
     @Test
     void testUpdateFilm() {
         Film actualFilm = filmStorage.create(getFilm());
@@ -60,6 +98,47 @@ public class FilmDbStorageTest {
         assertFilmsEquals(resultFilm, actualFilm);
     }
 
+    @Test
+    void testUpdateFilmKeepsLikesCount() {
+        User user = userStorage.create(getUser());
+        Film film = filmStorage.create(getFilm());
+        filmStorage.addLike(film.getId(), user.getId());
+
+        film.setLikesCount(15);
+        Film resultFilm = filmStorage.update(film);
+
+        assertThat(resultFilm.getLikesCount()).isEqualTo(1);
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikesCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testUpdateFilmGenres() {
+        Film actualFilm = getFilm();
+        actualFilm.addGenre(new Genre(1, null));
+        actualFilm.addGenre(new Genre(2, null));
+        actualFilm = filmStorage.create(actualFilm);
+
+        actualFilm.setGenres(new HashSet<>());
+        actualFilm.addGenre(new Genre(3, null));
+        actualFilm.addGenre(new Genre(2, null));
+
+        Film resultFilm = filmStorage.update(actualFilm);
+
+        assertThat(resultFilm.getGenres())
+                .extracting("name")
+                .containsExactly("Драма", "Мультфильм");
+        assertThat(filmStorage.findById(actualFilm.getId()).get().getGenres())
+                .extracting("id")
+                .containsExactly(2, 3);
+    }
+
+    @Test
+    void testUpdateUnknownFilm() {
+        Film film = getFilm();
+        film.setId(-1);
+        assertThrows(NotFoundException.class, () -> filmStorage.update(film));
+    }
+
     @Test
     void testFindFilmById() {
         Film actualFilm = filmStorage.create(getFilm());
@@ -70,6 +149,34 @@ public class FilmDbStorageTest {
         assertFilmsEquals(resultFilm, actualFilm);
     }
 
+    @Test
+    void testFindFilmsByIds() {
+        Film filmWithGenres = getFilm();
+        filmWithGenres.addGenre(new Genre(1, null));
+        Integer filmId1 = filmStorage.create(filmWithGenres).getId();
+        Integer filmId2 = filmStorage.create(getFilm()).getId();
+
+        List<Film> resultFilms = filmStorage.findByIds(List.of(filmId2, -1, filmId1, filmId2));
+
+        assertThat(resultFilms)
+                .extracting("id")
+                .containsExactly(filmId2, filmId1);
+        assertThat(resultFilms.get(1).getGenres())
+                .extracting("name")
+                .containsExactly("Комедия");
+    }
+
+    @Test
+    void testExists() {
+        Integer filmId1 = filmStorage.create(getFilm()).getId();
+        Integer filmId2 = filmStorage.create(getFilm()).getId();
+
+        assertThat(filmStorage.existsById(filmId1)).isTrue();
+        assertThat(filmStorage.existsById(-1)).isFalse();
+        assertThat(filmStorage.existsAll(List.of(filmId1, filmId2, filmId1))).isTrue();
+        assertThat(filmStorage.existsAll(List.of(filmId1, -1))).isFalse();
+    }
+
     @Test
     void testFindAllFilms() {
         Integer actualFilmId1 = filmStorage.create(getFilm()).getId();
@@ -87,12 +194,89 @@ public class FilmDbStorageTest {
         assertThat(resultIds).contains(actualFilmId1, actualFilmId2);
     }
 
+    @Test
+    void testFindPage() {
+        Integer filmId1 = filmStorage.create(getFilm()).getId();
+        Integer filmId2 = filmStorage.create(getFilm()).getId();
+        Integer filmId3 = filmStorage.create(getFilm()).getId();
+
+        List<Integer> firstPage = filmStorage.findPage(null, 2)
+                .stream()
+                .map(film -> film.getId())
+                .collect(Collectors.toList());
+        assertThat(firstPage).containsExactly(filmId1, filmId2);
+
+        List<Integer> secondPage = filmStorage.findPage(filmId2, 2)
+                .stream()
+                .map(film -> film.getId())
+                .collect(Collectors.toList());
+        assertThat(secondPage).containsExactly(filmId3);
+    }
+
+    @Test
+    void testSearch() {
+        Film comedy = getFilm();
+        comedy.setName("Big Comedy_1");
+        comedy.addGenre(new Genre(1, null));
+        Integer comedyId = filmStorage.create(comedy).getId();
+
+        Film drama = getFilm();
+        drama.setName("big drama");
+        drama.setReleaseDate(LocalDate.of(2015, 5, 5));
+        drama.setMpa(new Mpa(3, null));
+        drama.addGenre(new Genre(2, null));
+        Integer dramaId = filmStorage.create(drama).getId();
+
+        Film other = getFilm();
+        other.setName("Other");
+        filmStorage.create(other);
+
+        assertThat(filmStorage.search(new FilmFilter("BIG", null, null, null, null), null, 10))
+                .extracting("id")
+                .containsExactly(comedyId, dramaId);
+        assertThat(filmStorage.search(new FilmFilter("y_", null, null, null, null), null, 10))
+                .extracting("id")
+                .containsExactly(comedyId);
+        assertThat(filmStorage.search(new FilmFilter(null, List.of(2, 5), null, null, null), null, 10))
+                .extracting("id")
+                .containsExactly(dramaId);
+        assertThat(filmStorage.search(new FilmFilter("big", null, 3, 2015, 2015), null, 10))
+                .extracting("id")
+                .containsExactly(dramaId);
+        assertThat(filmStorage.search(new FilmFilter("big", null, null, null, null), comedyId, 10))
+                .extracting("id")
+                .containsExactly(dramaId);
+        assertThat(filmStorage.search(new FilmFilter("big", null, null, null, null), null, 10).get(0).getGenres())
+                .extracting("name")
+                .containsExactly("Комедия");
+    }
+
+    @Test
+    void testForEach() {
+        Film filmWithGenres = getFilm();
+        filmWithGenres.addGenre(new Genre(2, null));
+        filmWithGenres.addGenre(new Genre(1, null));
+        Integer filmId1 = filmStorage.create(filmWithGenres).getId();
+        Integer filmId2 = filmStorage.create(getFilm()).getId();
+
+        List<Film> resultFilms = new ArrayList<>();
+        filmStorage.forEach(resultFilms::add);
+
+        assertThat(resultFilms)
+                .extracting("id")
+                .containsExactly(filmId1, filmId2);
+        assertThat(resultFilms.get(0).getGenres())
+                .extracting("name")
+                .containsExactly("Комедия", "Драма");
+        assertThat(resultFilms.get(1).getGenres()).isEmpty();
+    }
+
     @Test
     void testAddLike() {
         User user = userStorage.create(getUser());
         Film film = filmStorage.create(getFilm());
 
-        filmStorage.addLike(film, user);
+        filmStorage.addLike(film.getId(), user.getId());
 
         Set<Integer> resultLikes = getLikesByFilmId(film.getId());
         assertThat(resultLikes)
@@ -102,6 +286,22 @@ public class FilmDbStorageTest {
                 .isEqualTo(1);
     }
 
+    @Test
+    void testLikeWithUnknownFilmOrUser() {
+        User user = userStorage.create(getUser());
+        Film film = filmStorage.create(getFilm());
+
+        NotFoundException filmError = assertThrows(NotFoundException.class,
+                () -> filmStorage.addLike(-1, user.getId()));
+        assertThat(filmError.getMessage()).isEqualTo("Фильм с id = -1 не найден.");
+        NotFoundException userError = assertThrows(NotFoundException.class,
+                () -> filmStorage.removeLike(film.getId(), -1));
+        assertThat(userError.getMessage()).isEqualTo("Пользователь с id = -1 не найден.");
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(film.getId(), -1));
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+        assertThat(filmStorage.findById(film.getId()).get().getLikesCount()).isEqualTo(0);
+    }
+
     @Test
     void testRemoveLike() {
         User user1 = userStorage.create(getUser());
@@ -109,8 +309,8 @@ public class FilmDbStorageTest {
 
         Film film = filmStorage.create(getFilm());
 
-        filmStorage.addLike(film, user1);
-        filmStorage.addLike(film, user2);
+        filmStorage.addLike(film.getId(), user1.getId());
+        filmStorage.addLike(film.getId(), user2.getId());
 
         Set<Integer> resultLikes = getLikesByFilmId(film.getId());
         assertThat(resultLikes)
@@ -119,7 +319,7 @@ public class FilmDbStorageTest {
                 .size()
                 .isEqualTo(2);
 
-        filmStorage.removeLike(film, user1);
+        filmStorage.removeLike(film.getId(), user1.getId());
 
         resultLikes = getLikesByFilmId(film.getId());
         assertThat(resultLikes)
@@ -129,6 +329,171 @@ public class FilmDbStorageTest {
                 .isEqualTo(1);
     }
 
+    @Test
+    void testFindMostPopular() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+
+        Film film1 = filmStorage.create(getFilm());
+        Film film2 = filmStorage.create(getFilm());
+        Film film3 = filmStorage.create(getFilm());
+
+        filmStorage.addLike(film2.getId(), user1.getId());
+        filmStorage.addLike(film2.getId(), user2.getId());
+        filmStorage.addLike(film3.getId(), user1.getId());
+
+        List<Integer> resultIds = filmStorage.findMostPopular(FilmFilter.empty(), 2)
+                .stream()
+                .map(film -> film.getId())
+                .collect(Collectors.toList());
+        assertThat(resultIds).containsExactly(film2.getId(), film3.getId());
+    }
+
+    @Test
+    void testForEachLike() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+        Film film1 = filmStorage.create(getFilm());
+        Film film2 = filmStorage.create(getFilm());
+        filmStorage.addLike(film2.getId(), user1.getId());
+        filmStorage.addLike(film1.getId(), user2.getId());
+        filmStorage.addLike(film1.getId(), user1.getId());
+
+        List<List<Integer>> resultLikes = new ArrayList<>();
+        filmStorage.forEachLike((userId, filmId) -> resultLikes.add(List.of(userId, filmId)));
+
+        assertThat(resultLikes).containsExactly(
+                List.of(user1.getId(), film1.getId()),
+                List.of(user1.getId(), film2.getId()),
+                List.of(user2.getId(), film1.getId()));
+    }
+
+    @Test
+    void testForEachLikesCount() {
+        User user = userStorage.create(getUser());
+        Film film1 = filmStorage.create(getFilm());
+        Film film2 = filmStorage.create(getFilm());
+        filmStorage.addLike(film2.getId(), user.getId());
+
+        Map<Integer, Integer> resultCounts = new HashMap<>();
+        filmStorage.forEachLikesCount(resultCounts::put);
+
+        assertThat(resultCounts)
+                .contains(entry(film1.getId(), 0), entry(film2.getId(), 1));
+    }
+
+    @Test
+    void testApplyLikes() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+        Film film1 = filmStorage.create(getFilm());
+        Film film2 = filmStorage.create(getFilm());
+        filmStorage.addLike(film2.getId(), user1.getId());
+
+        Map<Integer, Integer> deltas = filmStorage.applyLikes(List.of(
+                new LikeChange(film1.getId(), user1.getId(), true),
+                new LikeChange(film1.getId(), user2.getId(), true),
+                new LikeChange(film2.getId(), user1.getId(), false),
+                new LikeChange(film2.getId(), user2.getId(), false)));
+
+        assertThat(deltas).containsOnly(entry(film1.getId(), 2), entry(film2.getId(), -1));
+        assertThat(getLikesByFilmId(film1.getId())).containsOnly(user1.getId(), user2.getId());
+        assertThat(getLikesByFilmId(film2.getId())).isEmpty();
+        assertThat(filmStorage.findById(film1.getId()).get().getLikesCount()).isEqualTo(2);
+        assertThat(filmStorage.findById(film2.getId()).get().getLikesCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testFindMostPopularWithFilter() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+
+        Film comedy = getFilm();
+        comedy.addGenre(new Genre(1, null));
+        comedy = filmStorage.create(comedy);
+        Film popularComedy = getFilm();
+        popularComedy.addGenre(new Genre(1, null));
+        popularComedy.setMpa(new Mpa(3, null));
+        popularComedy = filmStorage.create(popularComedy);
+        Film drama = getFilm();
+        drama.addGenre(new Genre(2, null));
+        drama.setReleaseDate(LocalDate.of(2020, 1, 1));
+        drama = filmStorage.create(drama);
+
+        filmStorage.addLike(popularComedy.getId(), user1.getId());
+        filmStorage.addLike(drama.getId(), user1.getId());
+        filmStorage.addLike(drama.getId(), user2.getId());
+
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, List.of(1), null, null, null), 10))
+                .extracting("id")
+                .containsExactly(popularComedy.getId(), comedy.getId());
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, null, 3, null, null), 10))
+                .extracting("id")
+                .containsExactly(popularComedy.getId());
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, null, null, 2020, 2020), 10))
+                .extracting("id")
+                .containsExactly(drama.getId());
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, null, null, 2000, 2000), 1))
+                .extracting("id")
+                .containsExactly(popularComedy.getId());
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, null, 3, 2000, 2000), 10))
+                .extracting("id")
+                .containsExactly(popularComedy.getId());
+        assertThat(filmStorage.findMostPopular(new FilmFilter(null, null, null, 1990, 1990), 10))
+                .isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testConcurrentLikesKeepCounterConsistent() throws Exception {
+        Film film = filmStorage.create(getFilm());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(userStorage.create(getUser()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                boolean keepLike = i % 2 == 0;
+                for (int j = 0; j < 4; j++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        filmStorage.addLike(film.getId(), user.getId());
+                        if (!keepLike) {
+                            filmStorage.removeLike(film.getId(), user.getId());
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            SqlParameterSource parameters = new MapSqlParameterSource("film_id", film.getId());
+            Integer likesCount = jdbcTemplate.queryForObject(
+                    "select likes_count from films where film_id = :film_id", parameters, Integer.class);
+            Integer likesRows = jdbcTemplate.queryForObject(
+                    "select count(*) from likes where film_id = :film_id", parameters, Integer.class);
+            assertThat(likesCount).isEqualTo(likesRows);
+            assertThat(getLikesByFilmId(film.getId())).hasSize(users.size() / 2);
+        } finally {
+            executor.shutdownNow();
+            SqlParameterSource parameters = new MapSqlParameterSource("film_id", film.getId());
+            jdbcTemplate.update("delete from likes where film_id = :film_id", parameters);
+            jdbcTemplate.update("delete from films where film_id = :film_id", parameters);
+            jdbcTemplate.update("delete from users where user_id in (:user_ids)",
+                    new MapSqlParameterSource("user_ids", users.stream()
+                            .map(User::getId)
+                            .collect(Collectors.toList())));
+        }
+    }
+
     private Film getFilm() {
         return new Film(null, "Name", "Description",
                 LocalDate.of(2000, 10, 10), 100, 0,
@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
@@ -14,7 +16,7 @@ import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
-@Import(UserDbStorage.class)
+@Import({UserDbStorage.class, SimpleMeterRegistry.class})
 public class UserDbStorageTest {
     private final UserDbStorage userStorage;
 
@@ -34,6 +36,36 @@ public class UserDbStorageTest {
         assertUsersEquals(resultUser, actualUser);
     }
 
+    @Test
+    void testCreateAllUsers() {
+        List<User> resultUsers = userStorage.createAll(List.of(getUser(), getUser()));
+
+        assertThat(resultUsers)
+                .extracting("id")
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(userStorage.findById(resultUsers.get(1).getId())).isPresent();
+    }
+
+    @Test
+    void testAddFriends() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+        User user3 = userStorage.create(getUser());
+
+        int created = userStorage.addFriends(List.of(
+                new Friendship(user1.getId(), user2.getId()),
+                new Friendship(user1.getId(), user3.getId()),
+                new Friendship(user1.getId(), user2.getId())));
+
+        assertThat(created).isEqualTo(2);
+        assertThat(userStorage.findFriends(user1))
+                .extracting("id")
+                .containsExactlyInAnyOrder(user2.getId(), user3.getId());
+        assertThat(userStorage.findExistingIds(List.of(user1.getId(), -1)))
+                .containsExactly(user1.getId());
+    }
+
     @Test
     void testUpdateUser() {
         User actualUser = userStorage.create(getUser());
@@ -56,6 +88,29 @@ public class UserDbStorageTest {
         assertUsersEquals(resultUser, actualUser);
     }
 
+    @Test
+    void testFindUsersByIds() {
+        Integer userId1 = userStorage.create(getUser()).getId();
+        Integer userId2 = userStorage.create(getUser()).getId();
+
+        List<User> resultUsers = userStorage.findByIds(List.of(userId2, -1, userId1));
+
+        assertThat(resultUsers)
+                .extracting("id")
+                .containsExactly(userId2, userId1);
+    }
+
+    @Test
+    void testExists() {
+        Integer userId1 = userStorage.create(getUser()).getId();
+        Integer userId2 = userStorage.create(getUser()).getId();
+
+        assertThat(userStorage.existsById(userId1)).isTrue();
+        assertThat(userStorage.existsById(-1)).isFalse();
+        assertThat(userStorage.existsAll(List.of(userId1, userId2, userId1))).isTrue();
+        assertThat(userStorage.existsAll(List.of(userId1, -1))).isFalse();
+    }
+
     @Test
     void testFindAllUsers() {
         Integer actualUserId1 = userStorage.create(getUser()).getId();
@@ -73,12 +128,31 @@ public class UserDbStorageTest {
         assertThat(resultIds).contains(actualUserId1, actualUserId2);
     }
 
+    @Test
+    void testFindPage() {
+        Integer userId1 = userStorage.create(getUser()).getId();
+        Integer userId2 = userStorage.create(getUser()).getId();
+        Integer userId3 = userStorage.create(getUser()).getId();
+
+        List<Integer> firstPage = userStorage.findPage(null, 2)
+                .stream()
+                .map(user -> user.getId())
+                .collect(Collectors.toList());
+        assertThat(firstPage).containsExactly(userId1, userId2);
+
+        List<Integer> secondPage = userStorage.findPage(userId2, 2)
+                .stream()
+                .map(user -> user.getId())
+                .collect(Collectors.toList());
+        assertThat(secondPage).containsExactly(userId3);
+    }
+
     @Test
     void testAddFriend() {
         User user1 = userStorage.create(getUser());
         User user2 = userStorage.create(getUser());
 
-        userStorage.addFriend(user1, user2);
+        userStorage.addFriend(user1.getId(), user2.getId());
 
         List<User> resultFriends = userStorage.findFriends(user1);
         assertThat(resultFriends)
@@ -87,7 +161,7 @@ public class UserDbStorageTest {
                 .isEqualTo(1);
         assertThat(resultFriends.get(0).getId()).isEqualTo(user2.getId());
 
-        userStorage.addFriend(user2, user1);
+        userStorage.addFriend(user2.getId(), user1.getId());
         resultFriends = userStorage.findFriends(user2);
         assertThat(resultFriends)
                 .isNotNull()
@@ -101,7 +175,7 @@ public class UserDbStorageTest {
         User user1 = userStorage.create(getUser());
         User user2 = userStorage.create(getUser());
 
-        userStorage.addFriend(user1, user2);
+        userStorage.addFriend(user1.getId(), user2.getId());
 
         List<User> resultFriends = userStorage.findFriends(user1);
         assertThat(resultFriends)
@@ -110,13 +184,56 @@ public class UserDbStorageTest {
                 .isEqualTo(1);
         assertThat(resultFriends.get(0).getId()).isEqualTo(user2.getId());
 
-        userStorage.removeFriend(user1, user2);
+        userStorage.removeFriend(user1.getId(), user2.getId());
         resultFriends = userStorage.findFriends(user2);
         assertThat(resultFriends)
                 .size()
                 .isEqualTo(0);
     }
 
+    @Test
+    void testFindCommonFriends() {
+        User user1 = userStorage.create(getUser());
+        User user2 = userStorage.create(getUser());
+        User common1 = userStorage.create(getUser());
+        User common2 = userStorage.create(getUser());
+        User other = userStorage.create(getUser());
+
+        userStorage.addFriend(user1.getId(), common1.getId());
+        userStorage.addFriend(user1.getId(), common2.getId());
+        userStorage.addFriend(user1.getId(), other.getId());
+        userStorage.addFriend(user2.getId(), common2.getId());
+        userStorage.addFriend(user2.getId(), common1.getId());
+
+        List<Integer> resultIds = userStorage.findCommonFriends(user1.getId(), user2.getId())
+                .stream()
+                .map(user -> user.getId())
+                .collect(Collectors.toList());
+        assertThat(resultIds).containsExactly(common1.getId(), common2.getId());
+    }
+
+    @Test
+    void testFindRecommendedIds() {
+        User user = userStorage.create(getUser());
+        User friend1 = userStorage.create(getUser());
+        User friend2 = userStorage.create(getUser());
+        User candidate1 = userStorage.create(getUser());
+        User candidate2 = userStorage.create(getUser());
+
+        userStorage.addFriend(user.getId(), friend1.getId());
+        userStorage.addFriend(user.getId(), friend2.getId());
+        userStorage.addFriend(friend1.getId(), candidate2.getId());
+        userStorage.addFriend(friend1.getId(), candidate1.getId());
+        userStorage.addFriend(friend2.getId(), candidate1.getId());
+        userStorage.addFriend(friend2.getId(), friend1.getId());
+        userStorage.addFriend(friend2.getId(), user.getId());
+
+        assertThat(userStorage.findRecommendedIds(user.getId(), 10))
+                .containsExactly(candidate1.getId(), candidate2.getId());
+        assertThat(userStorage.findFollowerIds(candidate1.getId()))
+                .containsExactlyInAnyOrder(friend1.getId(), friend2.getId());
+    }
+
     private User getUser() {
         return new User(null, "login@yandex.ru", "login", "name",
                 LocalDate.of(1990, 5, 5));